@@ -1,4 +1,4 @@
--- DBの作成
+-- DBの作成（初期スキーマ。以降の変更は src/main/resources/db/migration のマイグレーションで行う）
 CREATE DATABASE IF NOT EXISTS mt_library CHARACTER SET utf8mb4 COLLATE utf8mb4_bin;
 
 CREATE TABLE IF NOT EXISTS mt_library.accounts
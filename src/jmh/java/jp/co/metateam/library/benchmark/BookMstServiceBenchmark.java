@@ -0,0 +1,42 @@
+package jp.co.metateam.library.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jp.co.metateam.library.model.BookMstDto;
+import jp.co.metateam.library.model.KeysetPage;
+import jp.co.metateam.library.service.BookMstService;
+
+/**
+ * 書籍一覧（在庫数の集計付き）の1ページ分の取得
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookMstServiceBenchmark {
+
+    @Benchmark
+    public KeysetPage<BookMstDto> firstPage(LibraryState state) {
+        return state.getBean(BookMstService.class).findAvailableWithStockCount(null, null, "asc");
+    }
+
+    @Benchmark
+    public KeysetPage<BookMstDto> middlePage(LibraryState state) {
+        return state.getBean(BookMstService.class).findAvailableWithStockCount(
+                String.valueOf(state.bookCount / 2), null, "asc");
+    }
+
+    @Benchmark
+    public KeysetPage<BookMstDto> lastPageDescending(LibraryState state) {
+        return state.getBean(BookMstService.class).findAvailableWithStockCount(null, null, "desc");
+    }
+}
@@ -0,0 +1,155 @@
+package jp.co.metateam.library.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import jp.co.metateam.library.MtLibraryApplication;
+import jp.co.metateam.library.service.AvailabilityIndex;
+import jp.co.metateam.library.tools.DatasetGenerator;
+import jp.co.metateam.library.tools.DatasetGenerator.Table;
+
+/**
+ * 性能計測用のアプリケーション（H2のMySQLモード）
+ * DatasetGenerator（負荷試験と同じシード）で書籍数・在庫数・貸出履歴の件数を指定してデータを投入し、
+ * 本番と同じSpringの構成で各サービスを呼び出す。
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    /** 乱数のシード（負荷試験用のデータと同じ） */
+    private static final long SEED = 42;
+
+    /** 社員数 */
+    private static final int ACCOUNT_COUNT = 200;
+
+    /** 基準日より前の貸出履歴の日数 */
+    public static final int HISTORY_DAYS = 365;
+
+    /** 基準日より後の貸出予定の日数 */
+    public static final int FUTURE_DAYS = 60;
+
+    /** 1回のバッチで登録する行数 */
+    private static final int BATCH_SIZE = 10_000;
+
+    /** 書籍数 */
+    @Param({ "1000", "10000" })
+    public int bookCount;
+
+    /** 書籍1冊あたりの在庫数（平均） */
+    @Param({ "3" })
+    public int stocksPerBook;
+
+    /** 在庫1冊あたりの貸出履歴の件数（平均） */
+    @Param({ "6" })
+    public int rentalsPerStock;
+
+    public ConfigurableApplicationContext context;
+
+    /** 在庫数 */
+    public int stockCount;
+
+    /** 貸出履歴の先頭日 */
+    public LocalDate firstRentalDay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // フォークしたJVM内で再起動用のクラスローダーを使わない
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        this.context = new SpringApplicationBuilder(MtLibraryApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:mt_library_" + System.nanoTime()
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.flyway.enabled=false",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=classpath:benchmark/schema-h2.sql",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=false",
+                "--library.availability.rebuild-cron=-",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN");
+
+        LocalDate today = LocalDate.now(ZoneId.systemDefault());
+        this.stockCount = this.bookCount * this.stocksPerBook;
+        this.firstRentalDay = today.minusDays(HISTORY_DAYS);
+        DatasetGenerator generator = new DatasetGenerator(SEED, ACCOUNT_COUNT, this.bookCount, this.stockCount,
+                this.stockCount * this.rentalsPerStock, HISTORY_DAYS, FUTURE_DAYS, today);
+        try {
+            JdbcSink sink = new JdbcSink(this.context.getBean(JdbcTemplate.class));
+            generator.generate(sink);
+            sink.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // 投入データを反映（JDBCで登録したため、キャッシュを破棄して索引を作り直す）
+        this.context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+        this.context.getBean(AvailabilityIndex.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (this.context != null) {
+            this.context.close();
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return this.context.getBean(type);
+    }
+
+    /**
+     * 生成した行をテーブルごとにバッチで登録する（行はテーブル順に届くため、切り替わりで書き出す）
+     */
+    private static class JdbcSink implements DatasetGenerator.RowSink {
+        private final JdbcTemplate jdbcTemplate;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        private Table table;
+
+        private JdbcSink(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Override
+        public void accept(Table table, Object[] row) {
+            if (table != this.table || this.rows.size() >= BATCH_SIZE) {
+                flush();
+                this.table = table;
+            }
+            this.rows.add(row);
+        }
+
+        private void flush() {
+            if (this.rows.isEmpty()) {
+                return;
+            }
+            String[] columns = this.table.getColumns();
+            String sql = "INSERT INTO " + this.table.getTableName() + " (" + String.join(", ", columns)
+                    + ") VALUES (" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+            this.jdbcTemplate.batchUpdate(sql, this.rows);
+            this.rows.clear();
+        }
+    }
+}
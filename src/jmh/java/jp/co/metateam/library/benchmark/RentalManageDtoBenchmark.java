@@ -0,0 +1,111 @@
+package jp.co.metateam.library.benchmark;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jp.co.metateam.library.model.RentalManageDto;
+import jp.co.metateam.library.service.RentalManageService;
+import jp.co.metateam.library.tools.DatasetGenerator;
+import jp.co.metateam.library.values.RentalStatus;
+
+/**
+ * 貸出登録・更新時のチェック（貸出期間の重複確認、貸出ステータスの遷移確認）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RentalManageDtoBenchmark {
+
+    /** 重複確認の入力の件数（順に使い回す） */
+    private static final int REQUEST_COUNT = 1024;
+
+    /**
+     * 重複確認の入力（在庫・期間は固定シードの乱数で選ぶ）
+     */
+    @State(Scope.Thread)
+    public static class RentalRequests {
+        private RentalManageDto[] requests;
+        private RentalManageService rentalManageService;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(LibraryState state) {
+            this.rentalManageService = state.getBean(RentalManageService.class);
+            this.requests = new RentalManageDto[REQUEST_COUNT];
+
+            Random random = new Random(42);
+            int windowDays = LibraryState.HISTORY_DAYS + LibraryState.FUTURE_DAYS;
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                LocalDate from = state.firstRentalDay.plusDays(random.nextInt(windowDays));
+
+                RentalManageDto dto = new RentalManageDto();
+                dto.setStockId(DatasetGenerator.stockId(random.nextInt(state.stockCount)));
+                dto.setExpectedRentalOn(Date.valueOf(from));
+                dto.setExpectedReturnOn(Date.valueOf(from.plusDays(random.nextInt(14) + 1)));
+                this.requests[i] = dto;
+            }
+        }
+
+        private RentalManageDto next() {
+            RentalManageDto dto = this.requests[this.next];
+            this.next = (this.next + 1) % REQUEST_COUNT;
+            return dto;
+        }
+    }
+
+    /**
+     * 貸出ステータスの全組み合わせ（変更前 × 変更後）
+     */
+    @State(Scope.Thread)
+    public static class StatusTransitions {
+        private RentalManageDto[] dtos;
+        private Integer[] previousStatuses;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RentalStatus[] statuses = RentalStatus.values();
+            this.dtos = new RentalManageDto[statuses.length * statuses.length];
+            this.previousStatuses = new Integer[this.dtos.length];
+            int i = 0;
+            for (RentalStatus previous : statuses) {
+                for (RentalStatus current : statuses) {
+                    RentalManageDto dto = new RentalManageDto();
+                    dto.setStatus(current.getValue());
+                    this.dtos[i] = dto;
+                    this.previousStatuses[i] = previous.getValue();
+                    i++;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public String rentalCheck(RentalRequests requests) {
+        RentalManageDto dto = requests.next();
+        return dto.rentalCheck(requests.rentalManageService, dto, dto.getStockId());
+    }
+
+    @Benchmark
+    public void isValidStatus(StatusTransitions transitions, Blackhole blackhole) {
+        for (int i = 0; i < transitions.dtos.length; i++) {
+            blackhole.consume(transitions.dtos[i].isValidStatus(transitions.previousStatuses[i]));
+        }
+    }
+}
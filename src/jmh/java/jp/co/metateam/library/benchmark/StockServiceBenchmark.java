@@ -0,0 +1,41 @@
+package jp.co.metateam.library.benchmark;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ui.ExtendedModelMap;
+
+import jp.co.metateam.library.service.StockService;
+
+/**
+ * 在庫カレンダー（書籍ごとの日別貸出可能数）の組み立て
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StockServiceBenchmark {
+
+    @Benchmark
+    public List<Object[]> generateBookDataCurrentMonth(LibraryState state) {
+        YearMonth month = YearMonth.now();
+        return state.getBean(StockService.class).generateBookData(new ExtendedModelMap(), month.getYear(),
+                month.getMonthValue());
+    }
+
+    @Benchmark
+    public List<Object[]> generateBookDataNextMonth(LibraryState state) {
+        YearMonth month = YearMonth.now().plusMonths(1);
+        return state.getBean(StockService.class).generateBookData(new ExtendedModelMap(), month.getYear(),
+                month.getMonthValue());
+    }
+}
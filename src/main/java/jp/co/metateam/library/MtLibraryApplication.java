@@ -3,9 +3,11 @@ package jp.co.metateam.library;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaRepositories("jp.co.metateam.library.repository")
+@EnableScheduling
 public class MtLibraryApplication {
 
 	public static void main(String[] args) {
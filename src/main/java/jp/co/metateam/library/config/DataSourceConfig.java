@@ -0,0 +1,90 @@
+package jp.co.metateam.library.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 接続先の構成（プライマリ・レプリカの接続プールと振り分け）
+ * レプリカのURL（library.datasource.replica.url）が未設定の場合は、すべてプライマリに接続する。
+ * マイグレーション（Flyway）は常にプライマリに対して行う。
+ */
+@Log4j2
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public ReadYourWritesInterceptor readYourWritesInterceptor(
+            @Value("${library.datasource.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWritesInterceptor(windowMillis);
+    }
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    /**
+     * レプリカの接続プール（library.datasource.replica.url を設定した場合のみ）
+     */
+    @Bean
+    @ConditionalOnProperty("library.datasource.replica.url")
+    @ConfigurationProperties("library.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${library.datasource.replica.url}") String url,
+            @Value("${library.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${library.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName(ReadReplicaRoutingDataSource.REPLICA);
+        // レプリカへの誤った更新を接続の設定でも防ぐ
+        dataSource.setReadOnly(true);
+        log.info("Read-only transactions are routed to the replica: {}", url);
+        return dataSource;
+    }
+
+    /**
+     * 振り分け後の接続（JPA・JdbcTemplateが使う。DataSourceProxyPostProcessor がSQLの計測用に包む）
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") ObjectProvider<DataSource> replicaDataSource,
+            ReadYourWritesInterceptor readYourWrites) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReadReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        targets.put(ReadReplicaRoutingDataSource.REPLICA, replicaDataSource.getIfAvailable(() -> primaryDataSource));
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(readYourWrites);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,55 @@
+package jp.co.metateam.library.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * 接続（dataSource、プライマリ・レプリカへの振り分け後）をプロキシで包み、実行したSQLを計測中の SqlStatementStats に記録する
+ * Hibernate・JdbcTemplate のどちらから実行したSQLも対象になる。
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)
+                || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new StatsListener())
+                .build();
+    }
+
+    private static class StatsListener implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SqlStatementStats stats = SqlStatementStats.current();
+            if (stats == null || queryInfoList.isEmpty()) {
+                return;
+            }
+            // バッチは1回の実行として数え、所要時間は先頭のSQLに計上する
+            long elapsed = execInfo.getElapsedTime();
+            for (QueryInfo queryInfo : queryInfoList) {
+                stats.record(queryInfo.getQuery(), elapsed);
+                elapsed = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jp.co.metateam.library.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 読み取り専用トランザクション（@Transactional(readOnly = true)）の接続をレプリカに、それ以外をプライマリに振り分ける
+ * LazyConnectionDataSourceProxy で包み、トランザクション開始後の最初のSQLの時点で振り分け先を決める。
+ *
+ * 画面表示中（open-in-view）はリクエストの最初の接続をリクエストの終わりまで使い続けるため、
+ * 更新リクエスト（GET・HEAD以外）では読み取り専用トランザクションもプライマリに送る。
+ *
+ * 書籍・在庫・貸出の更新回数（DataVersion）をETag・断片キャッシュのキーにして描画するリクエストも、プライマリに送る
+ * （レプリカが未反映の内容を新しい更新回数で保持・配布しないため）。最初のSQLより前に requirePrimary を呼ぶこと。
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    /** プライマリから読むリクエストの印（リクエスト属性） */
+    private static final String REQUIRE_PRIMARY_ATTRIBUTE = ReadReplicaRoutingDataSource.class.getName()
+            + ".REQUIRE_PRIMARY";
+
+    private final ReadYourWritesInterceptor readYourWrites;
+
+    public ReadReplicaRoutingDataSource(ReadYourWritesInterceptor readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPrimaryRequest()
+                || this.readYourWrites.isRecentWriter()) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    /**
+     * このリクエストの読み取り専用トランザクションもプライマリに送る
+     */
+    public static void requirePrimary(HttpServletRequest request) {
+        request.setAttribute(REQUIRE_PRIMARY_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    private static boolean isPrimaryRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        return ReadYourWritesInterceptor.isWriteRequest(request)
+                || request.getAttribute(REQUIRE_PRIMARY_ATTRIBUTE) != null;
+    }
+}
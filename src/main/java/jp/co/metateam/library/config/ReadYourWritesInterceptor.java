@@ -0,0 +1,91 @@
+package jp.co.metateam.library.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 利用者ごとに最後の更新リクエスト（GET・HEAD以外）の時刻を記録する
+ * 記録から一定時間は、その利用者の参照もプライマリに送る（レプリカの遅延で自分の登録・更新が見えなくなるのを防ぐ）。
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final long windowMillis;
+
+    /** ログインID → 最後の更新リクエストの時刻 */
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesInterceptor(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isWriteRequest(request)) {
+            record();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        // 処理に時間が掛かった場合に備え、コミット後の時刻でも記録する
+        if (isWriteRequest(request)) {
+            record();
+        }
+    }
+
+    /**
+     * 現在の利用者が直近に更新したか（プライマリから読む必要があるか）
+     */
+    public boolean isRecentWriter() {
+        if (this.windowMillis <= 0 || this.lastWrites.isEmpty()) {
+            return false;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long writtenAt = this.lastWrites.get(user);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt < this.windowMillis) {
+            return true;
+        }
+        this.lastWrites.remove(user, writtenAt);
+        return false;
+    }
+
+    static boolean isWriteRequest(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method);
+    }
+
+    private void record() {
+        if (this.windowMillis <= 0) {
+            return;
+        }
+        String user = currentUser();
+        if (user != null) {
+            this.lastWrites.put(user, System.currentTimeMillis());
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,28 @@
+package jp.co.metateam.library.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * リポジトリ呼び出し（SQLの実行とエンティティの生成）の時間を RequestTiming に記録する
+ */
+@Aspect
+@Component
+public class RepositoryTimingAspect {
+
+    @Around("execution(public * jp.co.metateam.library.repository.*.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return joinPoint.proceed();
+        }
+        timing.repositoryEntered();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.repositoryExited();
+        }
+    }
+}
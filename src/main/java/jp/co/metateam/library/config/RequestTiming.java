@@ -0,0 +1,110 @@
+package jp.co.metateam.library.config;
+
+import java.util.Locale;
+
+/**
+ * 1リクエストの処理時間の内訳（リポジトリ呼び出し・コントローラー・画面描画）
+ * ServerTimingFilter がリクエストの処理中だけ現在のスレッドに設定する。
+ */
+public class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private long handlerStartedAt;
+    private long handlerEndedAt;
+    private long renderEndedAt;
+
+    /** リポジトリ呼び出しの合計（入れ子の呼び出しは外側だけ数える） */
+    private long repositoryNanos;
+    private int repositoryDepth;
+    private long repositoryStartedAt;
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    void handlerStarted() {
+        this.handlerStartedAt = System.nanoTime();
+    }
+
+    void handlerEnded() {
+        this.handlerEndedAt = System.nanoTime();
+    }
+
+    void renderEnded() {
+        this.renderEndedAt = System.nanoTime();
+    }
+
+    void repositoryEntered() {
+        if (this.repositoryDepth++ == 0) {
+            this.repositoryStartedAt = System.nanoTime();
+        }
+    }
+
+    void repositoryExited() {
+        if (--this.repositoryDepth == 0) {
+            this.repositoryNanos += System.nanoTime() - this.repositoryStartedAt;
+        }
+    }
+
+    /**
+     * Server-Timing ヘッダーの値（描画中に呼んだ場合は、描画はその時点までの時間）
+     */
+    String toServerTiming(SqlStatementStats stats) {
+        long now = System.nanoTime();
+        StringBuilder header = new StringBuilder(128);
+        if (stats != null) {
+            header.append("db;dur=").append(stats.getElapsedMillis())
+                    .append(";desc=\"").append(stats.getStatementCount()).append(" queries\", ");
+        }
+        append(header, "repo", this.repositoryNanos);
+        if (this.handlerStartedAt != 0) {
+            append(header, "app", (this.handlerEndedAt != 0 ? this.handlerEndedAt : now) - this.handlerStartedAt);
+        }
+        if (this.handlerEndedAt != 0) {
+            append(header, "render", (this.renderEndedAt != 0 ? this.renderEndedAt : now) - this.handlerEndedAt);
+        }
+        append(header, "total", now - this.startedAt);
+        header.setLength(header.length() - 2);
+        return header.toString();
+    }
+
+    /**
+     * アクセスログの1行分
+     */
+    String toLogLine(SqlStatementStats stats) {
+        long now = System.nanoTime();
+        StringBuilder line = new StringBuilder(128);
+        line.append("total=").append(millis(now - this.startedAt)).append("ms");
+        if (this.handlerStartedAt != 0 && this.handlerEndedAt != 0) {
+            line.append(" app=").append(millis(this.handlerEndedAt - this.handlerStartedAt)).append("ms");
+            line.append(" render=").append(millis((this.renderEndedAt != 0 ? this.renderEndedAt : now)
+                    - this.handlerEndedAt)).append("ms");
+        }
+        line.append(" repo=").append(millis(this.repositoryNanos)).append("ms");
+        if (stats != null) {
+            line.append(" db=").append(stats.getElapsedMillis()).append("ms/").append(stats.getStatementCount())
+                    .append('q');
+        }
+        return line.toString();
+    }
+
+    private static void append(StringBuilder header, String name, long nanos) {
+        header.append(name).append(";dur=").append(millis(nanos)).append(", ");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -1,5 +1,6 @@
 package jp.co.metateam.library.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +26,10 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/register", "/error").permitAll()
                 .requestMatchers(PathRequest.toStaticResources().atCommonLocations()).permitAll()
+                .requestMatchers("/admin/**").hasAuthority("ADMIN")
+                // 管理用ポート（127.0.0.1のみ）：死活監視・Prometheusの収集は認証なし、その他は管理者のみ
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAuthority("ADMIN")
                 .anyRequest().authenticated()
             )
             .formLogin(formLogin -> formLogin
@@ -35,6 +40,11 @@ public class SecurityConfig {
             .logout(logout -> logout
                 .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
                 .logoutSuccessUrl("/login")
+            )
+            // 貸出一括登録（JSON / CSV）はCSRFトークンなしで受け付ける
+            // 本文の形式を application/json・text/csv に限るため、他サイトのフォームからは送れない（ブラウザの事前確認が必要）
+            .csrf(csrf -> csrf
+                .ignoringRequestMatchers(new AntPathRequestMatcher("/rental/batch", "POST"))
             );
 
         return http.build();
@@ -0,0 +1,118 @@
+package jp.co.metateam.library.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 処理時間の内訳を Server-Timing ヘッダーとアクセスログに出力する
+ * ヘッダーは本文の書き出し開始時に付ける（Thymeleafは描画を終えてから書き出すため、描画時間も含まれる）。
+ */
+@Log4j2(topic = "jp.co.metateam.library.access")
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String HEADER = "Server-Timing";
+
+    private final boolean enabled;
+
+    @Autowired
+    public ServerTimingFilter(@Value("${library.server-timing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !this.enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        TimingResponse timingResponse = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timingResponse);
+        } finally {
+            RequestTiming.stop();
+            // 本文のない応答はここで付ける
+            timingResponse.addServerTiming();
+            if (log.isInfoEnabled()) {
+                log.info("{} {} {} {}", request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        timing.toLogLine(SqlStatementStats.current()));
+            }
+        }
+    }
+
+    /**
+     * 本文の書き出し・リダイレクト・エラー応答の直前に Server-Timing ヘッダーを付ける
+     */
+    private static class TimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private boolean headerAdded;
+
+        private TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        private void addServerTiming() {
+            if (this.headerAdded || isCommitted()) {
+                return;
+            }
+            this.headerAdded = true;
+            setHeader(HEADER, this.timing.toServerTiming(SqlStatementStats.current()));
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+    }
+}
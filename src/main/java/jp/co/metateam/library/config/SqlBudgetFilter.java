@@ -0,0 +1,85 @@
+package jp.co.metateam.library.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * リクエストごとにSQLの件数・所要時間を計測し、上限を超えた場合は繰り返し実行したSQLとともに警告する
+ * （非同期で出力するCSVの本体は対象外）
+ */
+@Log4j2
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    /** 警告に含める繰り返し実行したSQLの件数 */
+    private static final int MAX_REPEATED_SHAPES = 5;
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final long maxTimeMillis;
+
+    @Autowired
+    public SqlBudgetFilter(@Value("${library.sql-budget.enabled:true}") boolean enabled,
+            @Value("${library.sql-budget.max-statements:10}") int maxStatements,
+            @Value("${library.sql-budget.max-time-ms:200}") long maxTimeMillis) {
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !this.enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.start();
+        request.setAttribute(SqlStatementStats.REQUEST_ATTRIBUTE, stats);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatementStats.stop();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementStats stats) {
+        if (stats.getStatementCount() == 0) {
+            return;
+        }
+        boolean overBudget = stats.getStatementCount() > this.maxStatements
+                || stats.getElapsedMillis() > this.maxTimeMillis;
+        if (!overBudget) {
+            log.debug("SQL: {} {} statements={} time={}ms", request.getMethod(), request.getRequestURI(),
+                    stats.getStatementCount(), stats.getElapsedMillis());
+            return;
+        }
+
+        StringBuilder repeated = new StringBuilder();
+        List<Map.Entry<String, Integer>> repeatedShapes = stats.getRepeatedShapes();
+        for (Map.Entry<String, Integer> entry : repeatedShapes.subList(0,
+                Math.min(MAX_REPEATED_SHAPES, repeatedShapes.size()))) {
+            repeated.append("\n  ").append(entry.getValue()).append(" x ").append(entry.getKey());
+        }
+        log.warn("SQL budget exceeded: {} {} statements={} (max {}) time={}ms (max {}ms){}", request.getMethod(),
+                request.getRequestURI(), stats.getStatementCount(), this.maxStatements, stats.getElapsedMillis(),
+                this.maxTimeMillis, repeated);
+    }
+}
@@ -0,0 +1,117 @@
+package jp.co.metateam.library.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import jakarta.servlet.ServletRequest;
+
+/**
+ * 1リクエスト（または計測範囲）で実行したSQLの件数・所要時間
+ * SqlBudgetFilter がリクエストの処理中だけ現在のスレッドに設定し、リクエスト属性にも残す。
+ *
+ * テストでは SqlStatementStats.from(mvcResult.getRequest()) で画面ごとの件数を確認する（SqlAssertions）。
+ */
+public class SqlStatementStats {
+
+    /** 計測結果を保持するリクエスト属性名 */
+    public static final String REQUEST_ATTRIBUTE = SqlStatementStats.class.getName();
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private int statementCount;
+    private long elapsedMillis;
+
+    /** 正規化したSQLごとの実行回数（初回の実行順） */
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+
+    /**
+     * 現在のスレッドで計測を始める（計測中であれば新しく始め直す）
+     */
+    public static SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * 現在のスレッドの計測を終える
+     */
+    public static SqlStatementStats stop() {
+        SqlStatementStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * 現在のスレッドで計測中の結果（計測していない場合はnull）
+     */
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * リクエストの計測結果（計測していない場合はnull）
+     */
+    public static SqlStatementStats from(ServletRequest request) {
+        return (SqlStatementStats) request.getAttribute(REQUEST_ATTRIBUTE);
+    }
+
+    void record(String sql, long elapsedMillis) {
+        this.statementCount++;
+        this.elapsedMillis += elapsedMillis;
+        this.shapes.merge(normalize(sql), 1, Integer::sum);
+    }
+
+    public int getStatementCount() {
+        return this.statementCount;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+
+    public Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(this.shapes);
+    }
+
+    /**
+     * 2回以上実行したSQL（回数の多い順）
+     */
+    public List<Map.Entry<String, Integer>> getRepeatedShapes() {
+        return this.shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * ログ・エラーメッセージ用の実行回数の一覧
+     */
+    public String describeShapes() {
+        StringBuilder description = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : this.shapes.entrySet()) {
+            description.append("\n  ").append(entry.getValue()).append(" x ").append(entry.getKey());
+        }
+        return description.toString();
+    }
+
+    /**
+     * 値の違いを除いたSQLの形（IN句の要素数・リテラル・空白の違いをまとめる）
+     */
+    static String normalize(String sql) {
+        String shape = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return shape.length() > 300 ? shape.substring(0, 300) + "..." : shape;
+    }
+}
@@ -0,0 +1,35 @@
+package jp.co.metateam.library.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jp.co.metateam.library.model.AccountOption;
+import jp.co.metateam.library.service.AccountSearchIndex;
+
+/**
+ * 社員番号・氏名の入力補完（貸出登録・編集画面から呼び出す）
+ */
+@RestController
+public class AccountSearchController {
+
+    private final AccountSearchIndex accountSearchIndex;
+    private final int maxResults;
+
+    @Autowired
+    public AccountSearchController(AccountSearchIndex accountSearchIndex,
+            @Value("${library.account-search.max-results:50}") int maxResults) {
+        this.accountSearchIndex = accountSearchIndex;
+        this.maxResults = maxResults;
+    }
+
+    @GetMapping("/rental/accounts")
+    public List<AccountOption> search(@RequestParam(name = "q", required = false) String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return this.accountSearchIndex.search(query, Math.min(limit, this.maxResults));
+    }
+}
@@ -1,6 +1,7 @@
 package jp.co.metateam.library.controller;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -10,11 +11,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jp.co.metateam.library.model.BookMst;
 import jp.co.metateam.library.model.BookMstDto;
+import jp.co.metateam.library.model.KeysetPage;
 import jp.co.metateam.library.service.BookMstService;
 import lombok.extern.log4j.Log4j2;
 
@@ -26,18 +32,33 @@ import lombok.extern.log4j.Log4j2;
 public class BookController {
     
     private final BookMstService bookMstService;
+    private final FragmentCache fragmentCache;
+    private final PageETag pageETag;
 
     @Autowired
-    public BookController(BookMstService bookMstService){
+    public BookController(BookMstService bookMstService, FragmentCache fragmentCache, PageETag pageETag){
         this.bookMstService = bookMstService;
+        this.fragmentCache = fragmentCache;
+        this.pageETag = pageETag;
     }
 
     @GetMapping("/book/index")
-    public String index(Model model) {
-        // 書籍を全件取得
-        List<BookMstDto> bookMstList = this.bookMstService.findAvailableWithStockCount();
-        
-        model.addAttribute("bookMstList", bookMstList);
+    public String index(@RequestParam(required = false) String after, @RequestParam(required = false) String before,
+            @RequestParam(required = false) String order, Model model, HttpServletRequest request,
+            HttpServletResponse response, WebRequest webRequest) {
+        // 前回の表示から書籍・在庫・貸出の更新がなければ304（画面を作らない）
+        if (this.pageETag.checkNotModified(webRequest)) {
+            return null;
+        }
+
+        // 書籍を1ページ分取得し、表とページ送りを描画（ページごとに描画済みのHTMLを使う）
+        String bookTable = this.fragmentCache.render("book/table", "book_table",
+                Arrays.asList(after, before, KeysetPage.normalizeOrder(order)), () -> {
+                    KeysetPage<BookMstDto> page = this.bookMstService.findAvailableWithStockCount(after, before, order);
+                    return Map.of("bookMstList", page.getContent(), "page", page);
+                }, request, response);
+
+        model.addAttribute("bookTable", bookTable);
 
         return "book/index";
     }
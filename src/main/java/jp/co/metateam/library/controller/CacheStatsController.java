@@ -0,0 +1,58 @@
+package jp.co.metateam.library.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 第2レベルキャッシュ・クエリキャッシュのヒット率（キャッシュサイズの調整用、管理者のみ）
+ */
+@RestController
+public class CacheStatsController {
+
+    private final Statistics statistics;
+
+    @Autowired
+    public CacheStatsController(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @GetMapping("/admin/cache-stats")
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : this.statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = this.statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            regions.put(regionName, toMap(region.getHitCount(), region.getMissCount(), region.getPutCount()));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", this.statistics.isStatisticsEnabled());
+        stats.put("secondLevelCache", toMap(this.statistics.getSecondLevelCacheHitCount(),
+                this.statistics.getSecondLevelCacheMissCount(), this.statistics.getSecondLevelCachePutCount()));
+        stats.put("queryCache", toMap(this.statistics.getQueryCacheHitCount(),
+                this.statistics.getQueryCacheMissCount(), this.statistics.getQueryCachePutCount()));
+        stats.put("regions", regions);
+
+        return stats;
+    }
+
+    private Map<String, Object> toMap(long hits, long misses, long puts) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", hits);
+        map.put("misses", misses);
+        map.put("puts", puts);
+        map.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return map;
+    }
+}
@@ -0,0 +1,54 @@
+package jp.co.metateam.library.controller;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import jp.co.metateam.library.model.CatalogImportResult;
+import jp.co.metateam.library.service.CatalogImportService;
+
+/**
+ * 書籍・在庫のCSV取込（管理者のみ）
+ */
+@RestController
+public class CatalogImportController {
+
+    private final CatalogImportService catalogImportService;
+
+    @Autowired
+    public CatalogImportController(CatalogImportService catalogImportService) {
+        this.catalogImportService = catalogImportService;
+    }
+
+    /**
+     * アップロードしたCSVを取り込む
+     */
+    @PostMapping(value = "/admin/import/catalog", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CatalogImportResult importUpload(@RequestParam("file") MultipartFile file) throws IOException {
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return this.catalogImportService.importCsv(reader);
+        }
+    }
+
+    /**
+     * 取込用ディレクトリ（library.import.directory）に置いたCSVを取り込む
+     */
+    @PostMapping("/admin/import/catalog/local")
+    public CatalogImportResult importLocal(@RequestParam("path") String path) throws IOException {
+        try {
+            return this.catalogImportService.importFile(path);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
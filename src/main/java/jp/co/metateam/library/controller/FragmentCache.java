@@ -0,0 +1,89 @@
+package jp.co.metateam.library.controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jp.co.metateam.library.config.ReadReplicaRoutingDataSource;
+import jp.co.metateam.library.service.DataVersion;
+
+/**
+ * 画面の一部（在庫カレンダーの表、書籍一覧の表）を描画済みのHTMLとして保持する
+ * キーにデータの更新回数を含めるため、書籍・在庫・貸出が更新されると描画し直す。
+ * 利用者によって内容が変わらない部分だけを対象にする。
+ * 保持する内容はプライマリから読む（レプリカの遅延で古い内容を新しい更新回数のキーで保持しないため）。
+ */
+@Component
+public class FragmentCache {
+
+    private final SpringTemplateEngine templateEngine;
+    private final ApplicationContext applicationContext;
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+    private final Cache<String, String> cache;
+
+    @Autowired
+    public FragmentCache(SpringTemplateEngine templateEngine, ApplicationContext applicationContext,
+            DataVersion dataVersion, @Value("${library.fragment-cache.enabled:false}") boolean enabled,
+            @Value("${library.fragment-cache.max-entries:200}") long maxEntries) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    /**
+     * 断片を描画して返す（キャッシュにあれば描画しない）
+     *
+     * @param template  テンプレート名
+     * @param fragment  th:fragment の名前
+     * @param keyParts  データの更新回数以外に内容を決める値（年月・ページのカーソルなど、nullも可）
+     * @param variables 描画に使う変数（キャッシュにない場合だけ呼ぶ）
+     */
+    public String render(String template, String fragment, List<?> keyParts, Supplier<Map<String, Object>> variables,
+            HttpServletRequest request, HttpServletResponse response) {
+        if (!this.enabled) {
+            return process(template, fragment, variables.get(), request, response);
+        }
+        // 描画中に更新があっても、描画前の更新回数のキーで保持するため古い内容は使われなくなる
+        String key = template + "::" + fragment + keyParts + "@" + this.dataVersion.get();
+        return this.cache.get(key, k -> {
+            ReadReplicaRoutingDataSource.requirePrimary(request);
+            return process(template, fragment, variables.get(), request, response);
+        });
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    private String process(String template, String fragment, Map<String, Object> variables,
+            HttpServletRequest request, HttpServletResponse response) {
+        Map<String, Object> contextVariables = new HashMap<>(variables);
+        contextVariables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(this.applicationContext, null));
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext())
+                        .buildExchange(request, response),
+                RequestContextUtils.getLocale(request), contextVariables);
+        return this.templateEngine.process(template, Set.of(fragment), context);
+    }
+}
@@ -0,0 +1,41 @@
+package jp.co.metateam.library.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jp.co.metateam.library.model.StockSummary;
+import jp.co.metateam.library.service.StockService;
+
+/**
+ * 期間内に空いている在庫の検索（貸出登録・編集画面の在庫の選択肢）
+ */
+@RestController
+public class FreeStockController {
+
+    private final StockService stockService;
+
+    @Autowired
+    public FreeStockController(StockService stockService) {
+        this.stockService = stockService;
+    }
+
+    /**
+     * @param from     貸出予定日
+     * @param to       返却予定日
+     * @param rentalId 編集中の貸出管理番号（自身の貸出は重複とみなさない）
+     */
+    @GetMapping("/rental/stocks")
+    public List<StockSummary> search(@RequestParam(required = false) Long bookId,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long rentalId) {
+        return this.stockService.findFreeStocks(bookId, title, from, to, rentalId);
+    }
+}
@@ -0,0 +1,71 @@
+package jp.co.metateam.library.controller;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jp.co.metateam.library.config.ReadReplicaRoutingDataSource;
+import jp.co.metateam.library.service.DataVersion;
+
+/**
+ * 一覧画面・在庫カレンダーの条件付きGET
+ * 書籍・在庫・貸出の更新回数からETagを作り、前回の表示から更新がなければ304を返す（DBは参照しない）。
+ * 画面にはログイン中の利用者の情報とCSRFトークンが含まれるため、セッションごとに別のETagにする。
+ * ETagを付けた画面はプライマリから読む（レプリカの遅延で古い内容に新しいETagを付けないため）。
+ */
+@Component
+public class PageETag {
+
+    /** 起動時刻（再起動で更新回数が0に戻っても、以前のETagと一致させない） */
+    private final long startedAt = System.currentTimeMillis();
+
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+
+    @Autowired
+    public PageETag(DataVersion dataVersion, @Value("${library.conditional-get.enabled:true}") boolean enabled) {
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 前回の表示から更新がなければ304を設定してtrueを返す（呼び出し元は画面を作らずにnullを返す）
+     * 引数にはハンドラの引数で受け取ったWebRequestを渡す（304の判定結果をSpring MVCと共有するため）。
+     */
+    public boolean checkNotModified(WebRequest webRequest) {
+        if (!this.enabled || !(webRequest instanceof NativeWebRequest nativeRequest)) {
+            return false;
+        }
+        HttpServletRequest request = nativeRequest.getNativeRequest(HttpServletRequest.class);
+        HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+        if (request == null || response == null) {
+            return false;
+        }
+        // 登録・更新後のメッセージ（フラッシュ属性）を表示する場合は毎回作る
+        Map<String, ?> flashMap = RequestContextUtils.getInputFlashMap(request);
+        if (flashMap != null && !flashMap.isEmpty()) {
+            return false;
+        }
+
+        // 毎回サーバーに確認させる（Spring Securityの no-store を付けない）
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        // このETag（更新回数）の時点の内容で画面を作る
+        ReadReplicaRoutingDataSource.requirePrimary(request);
+
+        // 貸出の延滞表示などは日付で変わるため、当日の日付も含める
+        String sessionId = webRequest.getSessionId();
+        String etag = "W/\"" + Long.toString(this.startedAt, 36) + "-" + this.dataVersion.get() + "-"
+                + LocalDate.now().toEpochDay() + "-"
+                + (sessionId == null ? "0" : Integer.toHexString(sessionId.hashCode())) + "\"";
+        return webRequest.checkNotModified(etag);
+    }
+}
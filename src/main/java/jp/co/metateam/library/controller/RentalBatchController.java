@@ -0,0 +1,58 @@
+package jp.co.metateam.library.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import jp.co.metateam.library.model.RentalBatchResult;
+import jp.co.metateam.library.model.RentalBatchRow;
+import jp.co.metateam.library.service.RentalBatchService;
+
+/**
+ * 貸出一括登録（JSON / CSV）
+ * 行ごとの登録結果を返す。検証エラーの行は登録せず、他の行は登録する。
+ */
+@RestController
+public class RentalBatchController {
+
+    private final RentalBatchService rentalBatchService;
+    private final int maxRows;
+
+    @Autowired
+    public RentalBatchController(RentalBatchService rentalBatchService,
+            @Value("${library.rental.batch-max-rows:1000}") int maxRows) {
+        this.rentalBatchService = rentalBatchService;
+        this.maxRows = maxRows;
+    }
+
+    @PostMapping(value = "/rental/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<RentalBatchResult> registerJson(@RequestBody List<RentalBatchRow> rows) {
+        // 配列の要素が null の場合は行として扱えないため、全体を受け付けない
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, (i + 1) + "行目が空です");
+            }
+        }
+        return register(rows);
+    }
+
+    @PostMapping(value = "/rental/batch", consumes = "text/csv")
+    public List<RentalBatchResult> registerCsv(@RequestBody String csv) {
+        return register(this.rentalBatchService.parseCsv(csv));
+    }
+
+    private List<RentalBatchResult> register(List<RentalBatchRow> rows) {
+        if (rows.size() > this.maxRows) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "一度に登録できるのは" + this.maxRows + "件までです");
+        }
+        return this.rentalBatchService.saveAll(rows);
+    }
+}
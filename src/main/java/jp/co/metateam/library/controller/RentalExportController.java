@@ -0,0 +1,61 @@
+package jp.co.metateam.library.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jp.co.metateam.library.service.RentalExportService;
+
+/**
+ * 貸出履歴のCSV出力
+ * 出力は非同期スレッドで行い、同時実行数を制限する（1件の出力がDB接続を1本使い続けるため）。
+ */
+@Controller
+public class RentalExportController {
+
+    private final RentalExportService rentalExportService;
+    private final Semaphore exportPermits;
+
+    @Autowired
+    public RentalExportController(RentalExportService rentalExportService,
+            @Value("${library.export.max-concurrent:2}") int maxConcurrent) {
+        this.rentalExportService = rentalExportService;
+        this.exportPermits = new Semaphore(maxConcurrent);
+    }
+
+    @GetMapping("/rental/export.csv")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer status) {
+        if (!this.exportPermits.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "他のCSV出力が実行中です");
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                this.rentalExportService.writeCsv(out, from, to, status);
+            } finally {
+                this.exportPermits.release();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rental_manage.csv\"")
+                .body(body);
+    }
+}
@@ -11,13 +11,15 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
 import jp.co.metateam.library.service.AccountService;
+import jp.co.metateam.library.service.BookMstService;
+import jp.co.metateam.library.service.RentalConflictException;
 import jp.co.metateam.library.service.RentalManageService;
 import jp.co.metateam.library.service.StockService;
 import lombok.extern.log4j.Log4j2;
+import jp.co.metateam.library.model.KeysetPage;
 import jp.co.metateam.library.model.RentalManage;
 import jp.co.metateam.library.model.RentalManageDto;
 
-import jp.co.metateam.library.model.Account;
 import jp.co.metateam.library.model.Stock;
 import jp.co.metateam.library.values.RentalStatus;
 import jp.co.metateam.library.values.StockStatus;
@@ -32,6 +34,7 @@ import jakarta.validation.Valid;
 
 //追加インポート
 import org.springframework.web.bind.annotation.RequestParam;//(5/14)
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * 貸出管理関連クラスß
@@ -45,6 +48,8 @@ public class RentalManageController {
     private final AccountService accountService;
     private final RentalManageService rentalManageService;
     private final StockService stockService;
+    private final BookMstService bookMstService;
+    private final PageETag pageETag;
 
     // インスタンス生成の際に呼び出されるコンストラクタの定義
     /*
@@ -58,12 +63,16 @@ public class RentalManageController {
             // AccountServiceというクラスのaccountServiceというインスタンスを参照。
             AccountService accountService,
             RentalManageService rentalManageService,
-            StockService stockService) {
+            StockService stockService,
+            BookMstService bookMstService,
+            PageETag pageETag) {
         // コンストラクターで受け取ったaccountServiceをRentalManageControllerクラスのインスタンス変数に格納する。
         // this.accountService→このクラスでの変数accountServiceは、右辺のaccountService(上で参照したのと同じ)と同じものです、と定義。
         this.accountService = accountService;
         this.rentalManageService = rentalManageService;
         this.stockService = stockService;
+        this.bookMstService = bookMstService;
+        this.pageETag = pageETag;
     }
 
     /**
@@ -75,14 +84,19 @@ public class RentalManageController {
     // 「/rental/index」というURI(貸出一覧画面)へのGETリクエストがこのメソッドに送信されると、そのリクエストを処理するためにこのメソッドが呼び出される。
     @GetMapping("/rental/index")
     // メソッド名がindex、引数名がmodel。
-    public String index(Model model) {
-        // 貸出管理テーブルから全件取得
-        // 取得した貸出管理情報は、変数RentalManageList に代入されており、この変数には全ての貸出管理情報が含まれる。
-        // this.rentalManageServiceサービスについては上述
-        List<RentalManage> RentalManageList = this.rentalManageService.findAll();
+    public String index(@RequestParam(required = false) String after, @RequestParam(required = false) String before,
+            @RequestParam(required = false) String order, Model model, WebRequest webRequest) {
+        // 前回の表示から貸出・在庫・書籍の更新がなければ304を返す（一覧を取得しない）
+        if (this.pageETag.checkNotModified(webRequest)) {
+            return null;
+        }
+        // 貸出管理テーブルから1ページ分取得（貸出予定日・貸出管理番号順）
+        // after / before は前後のページのカーソル、order は並び順（asc / desc）
+        KeysetPage<RentalManage> page = this.rentalManageService.findPage(after, before, order);
         // 貸出一覧画面に渡すデータをmodelに追加
         // addAttributeは属性追加のメソッド。()内に名前と、属性として追加する変数（一行上で定義）を記述する。
-        model.addAttribute("rentalManageList", RentalManageList);
+        model.addAttribute("rentalManageList", page.getContent());
+        model.addAttribute("page", page);
         // 貸出一覧画面に遷移
         // rental/indexを返している。引数が文字列だが、これはパス名を指している。
         // この行を使うことで、このメソッドが実行された後に、指定されたビュー(rental/index)に遷移することができる。
@@ -93,24 +107,26 @@ public class RentalManageController {
     // アノテーション…
     @GetMapping("/rental/add")
     public String add(Model model,
-            @RequestParam(value = "stockIdAvailebleRentalIndex1", required = false) String stockIdAvailebleRentalIndex1,
+            @RequestParam(value = "bookId", required = false) Long bookId,
             @RequestParam(value = "currentDate", required = false) LocalDate currentDate) {
-        List<Stock> stockList = this.stockService.findAll();
-        List<Account> accounts = this.accountService.findAll();
-        Stock stock = this.stockService.findById(stockIdAvailebleRentalIndex1);
-
         if (currentDate != null) {
+            // 在庫カレンダーから遷移した場合、指定日に空いている在庫を割り当てる
+            String freeStockId = bookId != null ? this.stockService.findFreeStockId(bookId, currentDate) : null;
+            Stock stock = freeStockId != null ? this.stockService.findById(freeStockId) : null;
             Date currentDateAsDate = Date.from(currentDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
             model.addAttribute("currentDate", currentDateAsDate);
-            model.addAttribute("stock", stock);
+            model.addAttribute("selectedStock", stock);
         }
 
-        model.addAttribute("accounts", accounts);
-        model.addAttribute("stockList", stockList);
+        // 社員は画面から入力補完で検索する（/rental/accounts、全件は埋め込まない）
+        // 在庫は書籍名と期間から空いている在庫を検索する（/rental/stocks、全件は埋め込まない）
         model.addAttribute("rentalStatus", RentalStatus.values());
 
         if (!model.containsAttribute("rentalManageDto")) {
             model.addAttribute("rentalManageDto", new RentalManageDto());
+        } else {
+            // 入力エラーで戻った場合は、選択済みの在庫を選択肢に残す
+            addSelectedStock(model, (RentalManageDto) model.getAttribute("rentalManageDto"));
         }
 
         return "rental/add";
@@ -131,6 +147,11 @@ public class RentalManageController {
             RedirectAttributes ra, Model model) {
         try {// 例外がスローされたらcatchに行く
 
+            // 在庫管理番号の必須チェック（書籍名で登録する場合は、登録時に在庫を割り当てるため不要）
+            boolean bookByTitle = isEmpty(rentalManageDto.getStockId()) && rentalManageDto.getBookId() != null;
+            if (isEmpty(rentalManageDto.getStockId()) && !bookByTitle) {
+                result.addError(new FieldError("rentalManageDto", "stockId", "在庫管理番号は必須です"));
+            }
             // バリデーションチェック
             if (result.hasErrors()) {// もしバリデーションエラーが発生したら
                 throw new Exception("Validation error.");// Validation errorというメッセージを持つ新しいExceptionオブジェクトが作成・スロー
@@ -156,28 +177,47 @@ public class RentalManageController {
                 return "rental/add";
             }
 
-            // 利用可否チェック 追加（5/17）
-            String errorMessage = this.checkInventoryStatus(rentalManageDto.getStockId());
-            if (errorMessage != null) {
-                result.addError(new FieldError("rentalManageDto", "stockId", errorMessage));
+            // 社員番号の存在チェック（入力補完のため自由入力になっている）
+            String employeeError = this.checkEmployee(rentalManageDto.getEmployeeId());
+            if (employeeError != null) {
+                result.addError(new FieldError("rentalManageDto", "employeeId", employeeError));
                 addCommonAttributes(model);
                 return "rental/add";
             }
-            // 貸出可否チェック 追加（5/16）
-            String DateError = rentalManageDto.rentalCheck(rentalManageService, rentalManageDto,
-                    rentalManageDto.getStockId());
-            if (DateError != null) {
-                // rentalManageDtoからexpectedRentalOnとexpectedReturnOnの値を取得して、FieldErrorオブジェクトに追加する
-                result.addError(new FieldError("rentalManageDto", "expectedRentalOn", DateError));
-                result.addError(new FieldError("rentalManageDto", "expectedReturnOn", DateError));
-                addCommonAttributes(model);
-                return "rental/add";
+            // 書籍名で登録する場合、在庫の利用可否・期間の重複は在庫の割り当て時に確認する
+            if (!bookByTitle) {
+                // 利用可否チェック 追加（5/17）
+                String errorMessage = this.checkInventoryStatus(rentalManageDto.getStockId());
+                if (errorMessage != null) {
+                    result.addError(new FieldError("rentalManageDto", "stockId", errorMessage));
+                    addCommonAttributes(model);
+                    return "rental/add";
+                }
+                // 貸出可否チェック 追加（5/16）
+                String DateError = rentalManageDto.rentalCheck(rentalManageService, rentalManageDto,
+                        rentalManageDto.getStockId());
+                if (DateError != null) {
+                    // rentalManageDtoからexpectedRentalOnとexpectedReturnOnの値を取得して、FieldErrorオブジェクトに追加する
+                    result.addError(new FieldError("rentalManageDto", "expectedRentalOn", DateError));
+                    result.addError(new FieldError("rentalManageDto", "expectedReturnOn", DateError));
+                    addCommonAttributes(model);
+                    return "rental/add";
+                }
             }
             // ここまで
             // 登録処理。RentalMangeServiceを使用し、rentalManageDtoオブジェクトを保存する（返す？）
             this.rentalManageService.save(rentalManageDto);
 
             return "redirect:/rental/index";// ページ遷移のためredirect
+        } catch (RentalConflictException e) {
+            // 同時に登録された貸出と期間が重複した場合（在庫をロックした上での再確認で検出）
+            result.addError(new FieldError("rentalManageDto", "expectedRentalOn", e.getMessage()));
+            result.addError(new FieldError("rentalManageDto", "expectedReturnOn", e.getMessage()));
+            addCommonAttributes(model);
+            // 書籍名での登録で空いている在庫がなかった場合は、順番待ちへの登録を案内する
+            model.addAttribute("waitlistAvailable", rentalManageDto.getBookId() != null
+                    && isEmpty(rentalManageDto.getStockId()));
+            return "rental/add";
         } catch (Exception e) {
             log.error(e.getMessage());// 例外が発生したことをログファイルに記録
             /*
@@ -198,15 +238,9 @@ public class RentalManageController {
     // @PathVariableアノテーションを使用して、URLからidパラメーターを受け取る。
     public String edit(@PathVariable("id") String id, Model model, // @RequestParam アノテーションは、HTTPリクエストのパラメーターを取得するために使用
             @RequestParam(name = "errorMessage", required = false) String errorMessage) {// required=falseはerrorMessageパラメーターが必須ではないことを示す。StringerrorMessageの中にエラーメッセージを格納
-        // 全件取得
-        List<RentalManage> rentalManageList = this.rentalManageService.findAll();
-        List<Account> accounts = this.accountService.findAll();
-        List<Stock> stockList = this.stockService.findAll();
+        // 社員・在庫は画面から検索する（/rental/accounts・/rental/stocks）
         // modelに情報を追加し、必要に応じて列挙型を属性として取得
-        model.addAttribute("accounts", accounts);
-        model.addAttribute("stockList", stockList);
         model.addAttribute("rentalStatus", RentalStatus.values());
-        model.addAttribute("rentalManageList", rentalManageList);
         model.addAttribute("rentalStockStatus", StockStatus.values());
         // エラーメッセージがある場合はそのメッセージをmodelに追加
         if (errorMessage != null) {
@@ -239,6 +273,7 @@ public class RentalManageController {
             // RentalManageDtoオブジェクトをモデルに"rentalManageDto"という属性名で追加
             model.addAttribute("rentalManageDto", rentalManageDto);
         }
+        addSelectedStock(model, (RentalManageDto) model.getAttribute("rentalManageDto"));
 
         return "rental/edit";
     }
@@ -247,6 +282,10 @@ public class RentalManageController {
     public String update(@PathVariable("id") Long id, @Valid @ModelAttribute RentalManageDto rentalManageDto,
             BindingResult result, Model model) {
         try {
+            // 在庫管理番号の必須チェック（編集では書籍名での割り当ては行わない）
+            if (isEmpty(rentalManageDto.getStockId())) {
+                result.addError(new FieldError("rentalManageDto", "stockId", "在庫管理番号は必須です"));
+            }
             // バリデーションエラーチェック
             if (result.hasErrors()) {
                 model.addAttribute("errorMessage", "入力内容にエラーがあります");
@@ -285,6 +324,13 @@ public class RentalManageController {
                 editCommonAttributes(model, rentalManageDto.getId(), rentalManageDto);
                 return "rental/edit";
             }
+            // 社員番号の存在チェック
+            String employeeError = this.checkEmployee(rentalManageDto.getEmployeeId());
+            if (employeeError != null) {
+                result.addError(new FieldError("rentalManageDto", "employeeId", employeeError));
+                editCommonAttributes(model, rentalManageDto.getId(), rentalManageDto);
+                return "rental/edit";
+            }
             // 利用可否チェック 追加（5/17）
             String errorMessage = this.checkInventoryStatus(rentalManageDto.getStockId());
             if (errorMessage != null) {
@@ -306,6 +352,12 @@ public class RentalManageController {
             // 更新処理
             this.rentalManageService.update(id, rentalManageDto);
             return "redirect:/rental/index";
+        } catch (RentalConflictException e) {
+            // 同時に登録された貸出と期間が重複した場合（在庫をロックした上での再確認で検出）
+            result.addError(new FieldError("rentalManageDto", "expectedRentalOn", e.getMessage()));
+            result.addError(new FieldError("rentalManageDto", "expectedReturnOn", e.getMessage()));
+            editCommonAttributes(model, rentalManageDto.getId(), rentalManageDto);
+            return "rental/edit";
         } catch (Exception e) {
             // エラーが発生した場合の処理
             log.error("更新処理中にエラーが発生しました: " + e.getMessage());
@@ -324,20 +376,21 @@ public class RentalManageController {
         }
     }
 
+    // 社員番号の存在チェック（アカウントのキャッシュを参照）
+    private String checkEmployee(String employeeId) {
+        if (this.accountService.findByEmployeeId(employeeId) == null) {
+            return "社員番号が存在しません";
+        }
+        return null;
+    }
+
     // エラー時の表示遷移に
     private void addCommonAttributes(Model model) {
-        List<Stock> stockList = this.stockService.findStockAvailableAll();
-        List<Account> accounts = this.accountService.findAll();
-        model.addAttribute("accounts", accounts);
-        model.addAttribute("stockList", stockList);
         model.addAttribute("rentalStatus", RentalStatus.values());
+        addSelectedStock(model, (RentalManageDto) model.getAttribute("rentalManageDto"));
     }
 
     private void editCommonAttributes(Model model, Long Id, RentalManageDto rentalManageDto) {
-        List<Stock> stockList = this.stockService.findStockAvailableAll();
-        List<Account> accounts = this.accountService.findAll();
-        model.addAttribute("accounts", accounts);
-        model.addAttribute("stockList", stockList);
         model.addAttribute("rentalStatus", RentalStatus.values());
 
         // Idを取得、RentalManageDtoを更新する
@@ -350,6 +403,29 @@ public class RentalManageController {
         rentalManageDto.setStockId(rentalManage.getStock().getId());
 
         model.addAttribute("rentalManageDto", rentalManageDto);
+        addSelectedStock(model, rentalManageDto);
+    }
+
+    // 選択済みの在庫・書籍名で登録する書籍（在庫の選択肢の初期表示用。選択肢は画面で書籍名と期間から検索し直す）
+    private void addSelectedStock(Model model, RentalManageDto rentalManageDto) {
+        if (rentalManageDto == null) {
+            return;
+        }
+        if (isEmpty(rentalManageDto.getStockId())) {
+            if (rentalManageDto.getBookId() != null) {
+                this.bookMstService.findById(rentalManageDto.getBookId())
+                        .ifPresent(bookMst -> model.addAttribute("selectedBook", bookMst));
+            }
+            return;
+        }
+        Stock stock = this.stockService.findById(rentalManageDto.getStockId());
+        if (stock != null) {
+            model.addAttribute("selectedStock", stock);
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
     }
 
     // 在庫カレンダーからの遷移時のメソッドを作成（6/5）
@@ -2,6 +2,7 @@ package jp.co.metateam.library.controller;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -12,10 +13,14 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jp.co.metateam.library.model.BookMst;
+import jp.co.metateam.library.model.KeysetPage;
 import jp.co.metateam.library.model.Stock;
 import jp.co.metateam.library.model.StockDto;
 
@@ -33,19 +38,31 @@ public class StockController {
 
     private final BookMstService bookMstService;
     private final StockService stockService;
+    private final FragmentCache fragmentCache;
+    private final PageETag pageETag;
 
     @Autowired
-    public StockController(BookMstService bookMstService, StockService stockService) {
+    public StockController(BookMstService bookMstService, StockService stockService, FragmentCache fragmentCache,
+            PageETag pageETag) {
         this.bookMstService = bookMstService;
         this.stockService = stockService;
+        this.fragmentCache = fragmentCache;
+        this.pageETag = pageETag;
 
     }
 
     @GetMapping("/stock/index")
-    public String index(Model model) {
-        List<Stock> stockList = this.stockService.findAll();
+    public String index(@RequestParam(required = false) String after, @RequestParam(required = false) String before,
+            @RequestParam(required = false) String order, Model model, WebRequest webRequest) {
+        // 前回の表示から更新がなければ304（画面を作らない）
+        if (this.pageETag.checkNotModified(webRequest)) {
+            return null;
+        }
+
+        KeysetPage<Stock> page = this.stockService.findPage(after, before, order);
 
-        model.addAttribute("stockList", stockList);
+        model.addAttribute("stockList", page.getContent());
+        model.addAttribute("page", page);
 
         return "stock/index";
     }
@@ -86,7 +103,7 @@ public class StockController {
 
     @GetMapping("/stock/{id}")
     public String detail(@PathVariable("id") String id, Model model) {
-        Stock stock = this.stockService.findById(id);
+        Stock stock = this.stockService.findDetailById(id);
 
         model.addAttribute("stock", stock);
 
@@ -137,7 +154,11 @@ public class StockController {
 
     @GetMapping("/stock/calendar")
     public String calendar(@RequestParam(required = false) Integer year, @RequestParam(required = false) Integer month,
-            Model model) {
+            Model model, HttpServletRequest request, HttpServletResponse response, WebRequest webRequest) {
+        // 前回の表示から更新がなければ304（カレンダーを計算しない）
+        if (this.pageETag.checkNotModified(webRequest)) {
+            return null;
+        }
 
         LocalDate today = year == null || month == null ? LocalDate.now() : LocalDate.of(year, month, 1);
         Integer targetYear = year == null ? today.getYear() : year;
@@ -148,14 +169,18 @@ public class StockController {
 
         List<Object> daysOfWeek = this.stockService.generateDaysOfWeek(targetYear, targetMonth, daysInMonth);
 
-        List<Object[]> bookData = this.stockService.generateBookData(model, targetYear, targetMonth);
+        // 表の本体は年月ごとに描画済みのHTMLを使う（書籍・在庫・貸出が更新されるまで再計算しない）
+        String calendarBody = this.fragmentCache.render("stock/calendar_body", "calendar_body",
+                List.of(targetYear, targetMonth),
+                () -> Map.of("bookData", this.stockService.generateBookData(model, targetYear, targetMonth)),
+                request, response);
 
         // ビューにデータを渡す
         model.addAttribute("targetYear", targetYear);
         model.addAttribute("targetMonth", targetMonth);
         model.addAttribute("daysOfWeek", daysOfWeek);
         model.addAttribute("daysInMonth", daysInMonth);
-        model.addAttribute("bookData", bookData);
+        model.addAttribute("calendarBody", calendarBody);
 
         return "stock/calendar";
     }
@@ -0,0 +1,108 @@
+package jp.co.metateam.library.controller;
+
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import jp.co.metateam.library.model.RentalManageDto;
+import jp.co.metateam.library.model.WaitlistEntry;
+import jp.co.metateam.library.service.AccountService;
+import jp.co.metateam.library.service.WaitlistService;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 順番待ち（書籍名での貸出登録で空いている在庫がなかった場合に登録する）
+ */
+@Log4j2
+@Controller
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+    private final AccountService accountService;
+
+    @Autowired
+    public WaitlistController(WaitlistService waitlistService, AccountService accountService) {
+        this.waitlistService = waitlistService;
+        this.accountService = accountService;
+    }
+
+    @GetMapping("/rental/waitlist")
+    public String index(Model model) {
+        List<WaitlistEntry> entries = this.waitlistService.findWaiting();
+
+        // 書籍ごとの順番（一覧は書籍ID・順番待ち番号順）
+        Map<Long, Integer> positions = new HashMap<>();
+        Long bookId = null;
+        int position = 0;
+        for (WaitlistEntry entry : entries) {
+            if (!entry.getBookMst().getId().equals(bookId)) {
+                bookId = entry.getBookMst().getId();
+                position = 0;
+            }
+            positions.put(entry.getId(), ++position);
+        }
+
+        model.addAttribute("waitlistEntries", entries);
+        model.addAttribute("positions", positions);
+        return "rental/waitlist";
+    }
+
+    /**
+     * 貸出登録画面（書籍名での登録）から、入力した書籍・社員・貸出日数で順番待ちに登録する
+     */
+    @PostMapping("/rental/waitlist")
+    public String join(@ModelAttribute RentalManageDto rentalManageDto, RedirectAttributes ra) {
+        String error = checkJoin(rentalManageDto);
+        if (error != null) {
+            ra.addFlashAttribute("errorMessage", error);
+            return "redirect:/rental/waitlist";
+        }
+        // 希望する貸出日数（繰り上げた日から数える）
+        int rentalDays = (int) Math.max(1, ChronoUnit.DAYS.between(
+                rentalManageDto.getExpectedRentalOn().toInstant(), rentalManageDto.getExpectedReturnOn().toInstant()));
+        try {
+            this.waitlistService.join(rentalManageDto.getBookId(), rentalManageDto.getEmployeeId(), rentalDays);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            ra.addFlashAttribute("errorMessage", "順番待ちの登録中にエラーが発生しました");
+        }
+        return "redirect:/rental/waitlist";
+    }
+
+    @PostMapping("/rental/waitlist/{id}/cancel")
+    public String cancel(@PathVariable("id") Long id, RedirectAttributes ra) {
+        try {
+            this.waitlistService.cancel(id);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            ra.addFlashAttribute("errorMessage", "順番待ちの取り消し中にエラーが発生しました");
+        }
+        return "redirect:/rental/waitlist";
+    }
+
+    private String checkJoin(RentalManageDto rentalManageDto) {
+        if (rentalManageDto.getBookId() == null) {
+            return "書籍名で登録する場合のみ順番待ちにできます";
+        }
+        if (rentalManageDto.getExpectedRentalOn() == null || rentalManageDto.getExpectedReturnOn() == null) {
+            return "貸出予定日・返却予定日を入力してください";
+        }
+        if (this.accountService.findByEmployeeId(rentalManageDto.getEmployeeId()) == null) {
+            return "社員番号が存在しません";
+        }
+        if (this.waitlistService.isWaiting(rentalManageDto.getBookId(), rentalManageDto.getEmployeeId())) {
+            return "この書籍はすでに順番待ちに登録されています";
+        }
+        return null;
+    }
+}
@@ -2,6 +2,10 @@ package jp.co.metateam.library.model;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -11,9 +15,12 @@ import jakarta.persistence.Table;
 
 /**
  * アカウント
+ * 第2レベルキャッシュ対象
  */
 @Entity
 @Table(name = "Accounts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 public class Account {
 
     @Id
@@ -0,0 +1,18 @@
+package jp.co.metateam.library.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 社員の候補（貸出登録・編集画面の社員番号の入力補完用）
+ */
+@Getter
+@AllArgsConstructor
+public class AccountOption {
+
+    /** 社員番号 */
+    private String employeeId;
+
+    /** 氏名 */
+    private String name;
+}
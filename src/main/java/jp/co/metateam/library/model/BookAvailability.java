@@ -0,0 +1,24 @@
+package jp.co.metateam.library.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 書籍ごとの月間在庫状況
+ */
+@Getter
+@AllArgsConstructor
+public class BookAvailability {
+
+    /** 書籍ID */
+    private Long bookId;
+
+    /** 書籍タイトル */
+    private String title;
+
+    /** 利用可能在庫数 */
+    private long stockCount;
+
+    /** 日ごとの貸出可能数（添字0が月初） */
+    private long[] freeCounts;
+}
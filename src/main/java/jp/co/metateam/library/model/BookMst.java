@@ -3,6 +3,10 @@ package jp.co.metateam.library.model;
 import java.sql.Timestamp;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -14,9 +18,12 @@ import jakarta.persistence.Table;
 
 /**
  * 書籍マスタ
+ * 第2レベルキャッシュ対象
  */
 @Entity
 @Table(name = "BookMst")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "bookMst")
 public class BookMst {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -5,6 +5,7 @@ import java.security.Timestamp;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 /**
@@ -12,6 +13,7 @@ import lombok.Setter;
  */
 @Getter
 @Setter
+@NoArgsConstructor
 public class BookMstDto {
     
     private Long id; 
@@ -25,4 +27,12 @@ public class BookMstDto {
     private Timestamp deletedAt;
 
     private BookMst bookMst;
+
+    /** 書籍一覧用（BookMstRepository#findAllWithAvailableStockCount） */
+    public BookMstDto(Long id, String isbn, String title, Long stockCount) {
+        this.id = id;
+        this.isbn = isbn;
+        this.title = title;
+        this.stockCount = stockCount;
+    }
 }
@@ -0,0 +1,50 @@
+package jp.co.metateam.library.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * 書籍・在庫CSV取込の結果
+ */
+@Getter
+public class CatalogImportResult {
+
+    /** 保持するエラーの上限（件数はerrorCountで数える） */
+    private static final int MAX_ERRORS = 1000;
+
+    /** 読み取ったデータ行数 */
+    private long lines;
+
+    /** 登録・更新した書籍数 */
+    private long books;
+
+    /** 登録した在庫数 */
+    private long stocks;
+
+    /** エラー行数 */
+    private long errorCount;
+
+    /** エラー内容（先頭から上限まで） */
+    private final List<String> errors = new ArrayList<>();
+
+    public void addLines(long count) {
+        this.lines += count;
+    }
+
+    public void addBooks(long count) {
+        this.books += count;
+    }
+
+    public void addStocks(long count) {
+        this.stocks += count;
+    }
+
+    public void addError(long lineNumber, String message) {
+        this.errorCount++;
+        if (this.errors.size() < MAX_ERRORS) {
+            this.errors.add(lineNumber + "行目: " + message);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package jp.co.metateam.library.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+/**
+ * 一覧画面の1ページ分（キーセット方式）
+ * 前後のページへは、先頭・末尾の行のキーをカーソルとして渡して取得する。
+ */
+@Getter
+public class KeysetPage<T> {
+
+    /** 表示順の行 */
+    private final List<T> content;
+
+    /** 次ページのカーソル（次ページがない場合はnull） */
+    private final String nextCursor;
+
+    /** 前ページのカーソル（前ページがない場合はnull） */
+    private final String prevCursor;
+
+    /** 並び順（asc / desc） */
+    private final String order;
+
+    private KeysetPage(List<T> content, String nextCursor, String prevCursor, String order) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.prevCursor = prevCursor;
+        this.order = order;
+    }
+
+    /**
+     * 並び順の指定を asc / desc に揃える（desc以外は昇順）
+     */
+    public static String normalizeOrder(String order) {
+        return "desc".equalsIgnoreCase(order) ? "desc" : "asc";
+    }
+
+    /**
+     * 取得結果からページを組み立てる
+     *
+     * @param fetched   取得順の行（1ページの件数+1件まで）
+     * @param size      1ページの件数
+     * @param backward  前ページ方向に取得した場合はtrue（取得順が表示順の逆になる）
+     * @param hasCursor カーソルを指定して取得した場合はtrue
+     * @param order     並び順
+     * @param cursorOf  行からカーソルを作る関数
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int size, boolean backward, boolean hasCursor,
+            String order, Function<T, String> cursorOf) {
+        boolean hasMore = fetched.size() > size;
+        List<T> content = new ArrayList<>(hasMore ? fetched.subList(0, size) : fetched);
+        if (backward) {
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = backward ? hasCursor : hasMore;
+        boolean hasPrev = backward ? hasMore : hasCursor;
+        String nextCursor = hasNext && !content.isEmpty() ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        String prevCursor = hasPrev && !content.isEmpty() ? cursorOf.apply(content.get(0)) : null;
+
+        return new KeysetPage<>(content, nextCursor, prevCursor, order);
+    }
+}
@@ -0,0 +1,24 @@
+package jp.co.metateam.library.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一括貸出登録の1行ごとの結果
+ */
+@Getter
+@AllArgsConstructor
+public class RentalBatchResult {
+
+    /** 行番号（1始まり、CSVはヘッダー行を除く） */
+    private int row;
+
+    /** 登録できた場合はtrue */
+    private boolean success;
+
+    /** 登録した貸出管理番号（失敗時はnull） */
+    private Long rentalId;
+
+    /** エラー内容（成功時はnull） */
+    private String message;
+}
@@ -0,0 +1,35 @@
+package jp.co.metateam.library.model;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 一括貸出登録の1行分
+ */
+@Getter
+@Setter
+public class RentalBatchRow {
+
+    /** 社員番号 */
+    private String employeeId;
+
+    /** 在庫管理番号 */
+    private String stockId;
+
+    /** 貸出ステータス（省略時は貸出待ち） */
+    private Integer status;
+
+    /** 貸出予定日 */
+    private LocalDate expectedRentalOn;
+
+    /** 返却予定日 */
+    private LocalDate expectedReturnOn;
+
+    /** CSVの読み取りエラー（読み取れた行はnull） */
+    @JsonIgnore
+    private String parseError;
+}
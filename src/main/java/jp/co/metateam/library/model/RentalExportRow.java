@@ -0,0 +1,48 @@
+package jp.co.metateam.library.model;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 貸出履歴CSV出力の1行（射影）
+ */
+@Getter
+@AllArgsConstructor
+public class RentalExportRow {
+
+    /** 貸出管理番号 */
+    private Long id;
+
+    /** 在庫管理番号 */
+    private String stockId;
+
+    /** 書籍名 */
+    private String title;
+
+    /** 社員番号 */
+    private String employeeId;
+
+    /** 氏名 */
+    private String name;
+
+    /** 貸出ステータス */
+    private Integer status;
+
+    /** 貸出予定日 */
+    private Date expectedRentalOn;
+
+    /** 返却予定日 */
+    private Date expectedReturnOn;
+
+    /** 貸出日時 */
+    private Timestamp rentaledAt;
+
+    /** 返却日時 */
+    private Timestamp returnedAt;
+
+    /** キャンセル日時 */
+    private Timestamp canceledAt;
+}
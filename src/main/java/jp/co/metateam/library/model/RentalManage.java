@@ -11,13 +11,20 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
 
 /**
  * 貸出管理
+ * 在庫・社員は遅延取得とし、必要な画面ではエンティティグラフで指定して取得する。
  */
 @Entity
 @Table(name = "RentalManage")
+@NamedEntityGraph(name = "RentalManage.withStockAndAccount", attributeNodes = {
+        @NamedAttributeNode(value = "stock", subgraph = "stock"),
+        @NamedAttributeNode("account") }, subgraphs = @NamedSubgraph(name = "stock", attributeNodes = @NamedAttributeNode("bookMst")))
 public class RentalManage {
 
     @Id
@@ -30,11 +37,11 @@ public class RentalManage {
     private Integer status;
 
     /** 貸出予定日 */
-    @Column(name = "expected_rental_on")
+    @Column(name = "expected_rental_on", nullable = false)
     private Date expectedRentalOn;
 
     /** 返却予定日 */
-    @Column(name = "expected_return_on")
+    @Column(name = "expected_return_on", nullable = false)
     private Date expectedReturnOn;
 
     /** 貸出日 */
@@ -49,11 +56,11 @@ public class RentalManage {
     @Column(name = "canceled_at")
     private Timestamp canceledAt;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "stock_id", nullable = false)
     private Stock stock;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "employee_id", referencedColumnName = "employee_id", nullable = false)
     private Account account;
 
@@ -29,9 +29,12 @@ public class RentalManageDto {
 
     private Long id;
 
-    @NotEmpty(message = "在庫管理番号は必須です")
+    // 書籍名で登録する場合は未指定（bookId から登録時に割り当てる）。未指定の確認は貸出管理のControllerで行う
     private String stockId;
 
+    // 書籍名で登録する場合の書籍ID（貸出登録のみ）
+    private Long bookId;
+
     @NotEmpty(message = "社員番号は必須です")
     private String employeeId;
 
@@ -105,39 +108,18 @@ public class RentalManageDto {
 
     // 貸出可否チェック（登録時）
     public String rentalCheck(RentalManageService rentalManageService, RentalManageDto rentalManageDto, String id) {
-        List<RentalManage> rentalAvailable = rentalManageService.findByStockIdAndStatusIn(id);
-        if (rentalAvailable != null) {
-            // ループ処理
-            for (RentalManage rentalManage : rentalAvailable) {
-                if (rentalManage.getExpectedReturnOn().after(rentalManageDto.getExpectedRentalOn())
-                        &&
-                        rentalManage.getExpectedRentalOn().before(rentalManageDto.getExpectedReturnOn())) {
-                    return "貸出期間が重複しています";
-                }
-            }
-            return null;
-        } else {
-            return null;
-        }
+        return rentalCheck(rentalManageService, rentalManageDto, id, null);
     }
 
     // 貸出可否チェック(更新時)
     public String rentalCheck(RentalManageService rentalManageService,
             RentalManageDto rentalManageDto, String id, Long rentalId) {
-        List<RentalManage> rentalAvailable = rentalManageService.findByStockIdAndStatusIn(id, rentalId);
-        if (rentalAvailable != null) {
-            // ループ処理
-            for (RentalManage rentalManage : rentalAvailable) {
-                if (rentalManage.getExpectedReturnOn().after(rentalManageDto.getExpectedRentalOn())
-                        &&
-                        rentalManage.getExpectedRentalOn().before(rentalManageDto.getExpectedReturnOn())) {
-                    return "貸出期間が重複しています";
-                }
-            }
-            return null;
-        } else {
-            return null;
+        // 既存の貸出の返却予定日が貸出予定日より後、かつ貸出予定日が返却予定日より前の場合は重複
+        if (rentalManageService.hasOverlap(id, rentalManageDto.getExpectedRentalOn(),
+                rentalManageDto.getExpectedReturnOn(), rentalId)) {
+            return "貸出期間が重複しています";
         }
+        return null;
     }
 
     // 貸出ステータス変更時の日付チェック
@@ -0,0 +1,29 @@
+package jp.co.metateam.library.model;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 貸出期間（貸出可否の集計用の射影）
+ */
+@Getter
+@AllArgsConstructor
+public class RentalPeriod {
+
+    /** 貸出管理番号 */
+    private Long rentalId;
+
+    /** 在庫管理番号 */
+    private String stockId;
+
+    /** 書籍ID */
+    private Long bookId;
+
+    /** 貸出予定日 */
+    private Date expectedRentalOn;
+
+    /** 返却予定日 */
+    private Date expectedReturnOn;
+}
@@ -4,6 +4,10 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -11,14 +15,26 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 
 /**
  * 在庫管理
+ * 関連はすべて遅延取得とし、画面ごとに必要な関連をエンティティグラフで指定して取得する。
+ * 第2レベルキャッシュ対象（貸出履歴の関連はキャッシュしない）
  */
 @Entity
 @Table(name = "Stocks")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stock")
+@NamedEntityGraph(name = "Stock.withBook", attributeNodes = @NamedAttributeNode("bookMst"))
+@NamedEntityGraph(name = "Stock.withRentals", attributeNodes = {
+        @NamedAttributeNode("bookMst"),
+        @NamedAttributeNode(value = "rentalManages", subgraph = "rentalManages") }, subgraphs = @NamedSubgraph(name = "rentalManages", attributeNodes = @NamedAttributeNode("account")))
 public class Stock {
 
     /** 在庫管理番号 */
@@ -37,11 +53,12 @@ public class Stock {
     @Column(name = "deleted_at")
     private Timestamp deletedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", referencedColumnName = "id", nullable = false)
     private BookMst bookMst;
 
-    @OneToMany(mappedBy = "stock", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "stock", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OrderBy("id")
     private List<RentalManage> rentalManages = new ArrayList<>();
 
     /** Getters */
@@ -0,0 +1,21 @@
+package jp.co.metateam.library.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 在庫概要（在庫カレンダー集計・貸出画面の在庫の選択肢用の射影）
+ */
+@Getter
+@AllArgsConstructor
+public class StockSummary {
+
+    /** 在庫管理番号 */
+    private String id;
+
+    /** 書籍ID */
+    private Long bookId;
+
+    /** 書籍タイトル */
+    private String title;
+}
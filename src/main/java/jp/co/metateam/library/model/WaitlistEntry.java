@@ -0,0 +1,125 @@
+package jp.co.metateam.library.model;
+
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * 順番待ち（書籍ごとに順番待ち番号の昇順で繰り上げる）
+ * 書籍・社員・貸出は遅延取得とする。
+ */
+@Entity
+@Table(name = "WaitlistEntries")
+public class WaitlistEntry {
+
+    /** 順番待ち番号（登録順） */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    /** 希望する貸出日数 */
+    @Column(name = "rental_days", nullable = false)
+    private Integer rentalDays;
+
+    /** 順番待ちステータス */
+    @Column(name = "status", nullable = false)
+    private Integer status;
+
+    /** 繰り上げ日時 */
+    @Column(name = "promoted_at")
+    private Timestamp promotedAt;
+
+    /** 取り消し日時 */
+    @Column(name = "canceled_at")
+    private Timestamp canceledAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private BookMst bookMst;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", referencedColumnName = "employee_id", nullable = false)
+    private Account account;
+
+    /** 繰り上げで登録した貸出 */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "rental_id")
+    private RentalManage rentalManage;
+
+    /** Getters */
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getRentalDays() {
+        return rentalDays;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public Timestamp getPromotedAt() {
+        return promotedAt;
+    }
+
+    public Timestamp getCanceledAt() {
+        return canceledAt;
+    }
+
+    public BookMst getBookMst() {
+        return bookMst;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public RentalManage getRentalManage() {
+        return rentalManage;
+    }
+
+    /** Setters */
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public void setRentalDays(Integer rentalDays) {
+        this.rentalDays = rentalDays;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public void setPromotedAt(Timestamp promotedAt) {
+        this.promotedAt = promotedAt;
+    }
+
+    public void setCanceledAt(Timestamp canceledAt) {
+        this.canceledAt = canceledAt;
+    }
+
+    public void setBookMst(BookMst bookMst) {
+        this.bookMst = bookMst;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public void setRentalManage(RentalManage rentalManage) {
+        this.rentalManage = rentalManage;
+    }
+}
@@ -1,13 +1,27 @@
 package jp.co.metateam.library.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 import jp.co.metateam.library.model.Account;
 
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, String> {
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	List<Account> findAll();
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	Account findByEmail(String email);
 
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	Optional<Account> findByEmployeeId(String employeeId);
+
+	// 一括貸出登録用：キャッシュにない社員をまとめて読み込む（AccountCache.findAllByEmployeeIds）
+	List<Account> findByEmployeeIdIn(Collection<String> employeeIds);
 }
@@ -1,15 +1,43 @@
 package jp.co.metateam.library.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 import jp.co.metateam.library.model.BookMst;
+import jp.co.metateam.library.model.BookMstDto;
 
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Optional;
 
 public interface BookMstRepository extends JpaRepository<BookMst, Long> {
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	List<BookMst> findAll();
 
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	List<BookMst> findAll(Sort sort);
+
 	Optional<BookMst> findById(BigInteger id);
+
+	// 書籍一覧：書籍ごとの利用可能在庫数（在庫のない書籍も0冊として含む）を書籍ID?1より後から昇順に取得
+	@Query("select new jp.co.metateam.library.model.BookMstDto(bm.id, bm.isbn, bm.title, count(s.id))"
+			+ " from BookMst bm left join bm.stock s on s.status = 0"
+			+ " where (?1 is null or bm.id > ?1)"
+			+ " group by bm.id, bm.isbn, bm.title"
+			+ " order by bm.id asc")
+	List<BookMstDto> findPageAscending(Long after, Pageable pageable);
+
+	// 書籍一覧：書籍ID?1より前から降順に取得
+	@Query("select new jp.co.metateam.library.model.BookMstDto(bm.id, bm.isbn, bm.title, count(s.id))"
+			+ " from BookMst bm left join bm.stock s on s.status = 0"
+			+ " where (?1 is null or bm.id < ?1)"
+			+ " group by bm.id, bm.isbn, bm.title"
+			+ " order by bm.id desc")
+	List<BookMstDto> findPageDescending(Long before, Pageable pageable);
 }
@@ -1,47 +1,100 @@
 package jp.co.metateam.library.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import jp.co.metateam.library.model.RentalExportRow;
 import jp.co.metateam.library.model.RentalManage;
+import jp.co.metateam.library.model.RentalPeriod;
 import java.util.Date;
 
 @Repository
 public interface RentalManageRepository extends JpaRepository<RentalManage, Long> {
         @NonNull
+        @EntityGraph("RentalManage.withStockAndAccount")
         List<RentalManage> findAll();
 
         @NonNull
+        @EntityGraph("RentalManage.withStockAndAccount")
         Optional<RentalManage> findById(@NonNull Long id);
 
-        // 追加(5/16)
-        // JPQL（Java Persistence Query Language）またはSQLクエリを指定
-        @Query("select rm"
-                        + " from RentalManage rm " + " where (rm.status = 0 or rm.status = 1)"
-                        + " and rm.stock.id = ?1 "
-                        + " and rm.id <> ?2")
-        List<RentalManage> findByStockIdAndStatusIn(String Id, Long rentalId);
-
-        @Query("select rm"
-                        + " from RentalManage rm " + " where (rm.status = 0 or rm.status = 1)"
-                        + " and rm.stock.id = ?1 ")
-        List<RentalManage> findByStockIdAndStatusIn(String Id);
-
-        // ここまで
-        /*
-         * 1.2.3.4.5 rentalId
-         * A.A.A.A.A id
-         * String Id → 1.2.3.4.5のレコード５行取得
-         * Long rentalId → rm.id ≠ 1 → .2.3.4.5のレコード４行取得
-         */
-        @Query(value = "SELECT COUNT(*) FROM rental_manage rm INNER JOIN stocks s ON rm.stock_id = s.id INNER JOIN book_mst bm ON s.book_id = bm.id"
-                        + " WHERE bm.title = ?1 AND (rm.expected_rental_on <= ?2 AND rm.expected_return_on >= ?2) AND (rm.status = 0 OR rm.status = 1)", nativeQuery = true)
-        Long countBySpecifiedDateRentals(String title, Date specifiedDate);
+        // 貸出一覧：(貸出予定日, 貸出管理番号) が (?1, ?2) より後の貸出を昇順に取得
+        @Query("select rm from RentalManage rm"
+                        + " join fetch rm.stock s join fetch s.bookMst join fetch rm.account"
+                        + " where (?1 is null or rm.expectedRentalOn > ?1"
+                        + " or (rm.expectedRentalOn = ?1 and rm.id > ?2))"
+                        + " order by rm.expectedRentalOn asc, rm.id asc")
+        List<RentalManage> findPageAscending(Date afterRentalOn, Long afterId, Pageable pageable);
+
+        // 貸出一覧：(貸出予定日, 貸出管理番号) が (?1, ?2) より前の貸出を降順に取得
+        @Query("select rm from RentalManage rm"
+                        + " join fetch rm.stock s join fetch s.bookMst join fetch rm.account"
+                        + " where (?1 is null or rm.expectedRentalOn < ?1"
+                        + " or (rm.expectedRentalOn = ?1 and rm.id < ?2))"
+                        + " order by rm.expectedRentalOn desc, rm.id desc")
+        List<RentalManage> findPageDescending(Date beforeRentalOn, Long beforeId, Pageable pageable);
+
+        // 貸出履歴CSV出力：貸出予定日の範囲・ステータスで絞り込み、貸出管理番号順に1行ずつ読み出す
+        // （MySQLのドライバはフェッチサイズInteger.MIN_VALUEで結果を保持せず逐次読み出す）
+        @QueryHints({
+                        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+        @Query("select new jp.co.metateam.library.model.RentalExportRow(rm.id, s.id, bm.title, a.employeeId, a.name,"
+                        + " rm.status, rm.expectedRentalOn, rm.expectedReturnOn, rm.rentaledAt, rm.returnedAt, rm.canceledAt)"
+                        + " from RentalManage rm join rm.stock s join s.bookMst bm join rm.account a"
+                        + " where (?1 is null or rm.expectedRentalOn >= ?1)"
+                        + " and (?2 is null or rm.expectedRentalOn <= ?2)"
+                        + " and (?3 is null or rm.status = ?3)"
+                        + " order by rm.id")
+        Stream<RentalExportRow> streamForExport(Date from, Date to, Integer status);
+
+        // 指定期間に掛かる貸出待ち・貸出中の貸出期間を一括取得（在庫カレンダー用）
+        @Query("select new jp.co.metateam.library.model.RentalPeriod(rm.id, rm.stock.id, rm.stock.bookMst.id, rm.expectedRentalOn, rm.expectedReturnOn)"
+                        + " from RentalManage rm"
+                        + " where (rm.status = 0 or rm.status = 1)"
+                        + " and rm.expectedRentalOn <= ?2 and rm.expectedReturnOn >= ?1")
+        List<RentalPeriod> findActivePeriodsBetween(Date from, Date to);
+
+        // 貸出待ち・貸出中の貸出期間を全件取得（貸出可否の索引構築用）
+        @Query("select new jp.co.metateam.library.model.RentalPeriod(rm.id, rm.stock.id, rm.stock.bookMst.id, rm.expectedRentalOn, rm.expectedReturnOn)"
+                        + " from RentalManage rm"
+                        + " where (rm.status = 0 or rm.status = 1)"
+                        + " and rm.expectedRentalOn is not null and rm.expectedReturnOn is not null")
+        List<RentalPeriod> findActivePeriods();
+
+        // 指定在庫の貸出待ち・貸出中の貸出期間を一括取得（一括貸出登録の重複確認用）
+        @Query("select new jp.co.metateam.library.model.RentalPeriod(rm.id, rm.stock.id, rm.stock.bookMst.id, rm.expectedRentalOn, rm.expectedReturnOn)"
+                        + " from RentalManage rm"
+                        + " where rm.stock.id in ?1 and (rm.status = 0 or rm.status = 1)"
+                        + " and rm.expectedRentalOn is not null and rm.expectedReturnOn is not null")
+        List<RentalPeriod> findActivePeriodsByStockIdIn(Collection<String> stockIds);
+
+        // 指定在庫に期間 [?3, ?4) と重なる貸出待ち・貸出中の貸出があれば1（貸出管理番号?2は除く）
+        // （H2ではEXISTSの結果が真偽値になるため、CASEで数値にする）
+        @Query(value = "SELECT CASE WHEN EXISTS(SELECT 1 FROM rental_manage rm"
+                        + " WHERE rm.stock_id = ?1 AND rm.status IN (0, 1) AND rm.id <> ?2"
+                        + " AND rm.expected_rental_on < ?4 AND rm.expected_return_on > ?3) THEN 1 ELSE 0 END",
+                        nativeQuery = true)
+        Long existsOverlap(String stockId, Long excludedRentalId, Date from, Date to);
+
+        // 貸出ステータスごとの件数（監視用）
+        long countByStatus(Integer status);
+
+        // 返却予定日を過ぎた貸出中の件数（監視用）
+        @Query("select count(rm) from RentalManage rm where rm.status = 1 and rm.expectedReturnOn < ?1")
+        long countOverdue(Date today);
 
         RentalManage findByExpectedRentalOn(Date expectedRentalOn);
 }
@@ -1,16 +1,25 @@
 package jp.co.metateam.library.repository;
 
-import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jp.co.metateam.library.model.RentalManage;
 import jp.co.metateam.library.model.Stock;
+import jp.co.metateam.library.model.StockSummary;
 
 @Repository
 public interface StockRepository extends JpaRepository<Stock, Long> {
@@ -19,37 +28,94 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
         List<Stock> findAll();
 
         @NonNull
+        @EntityGraph("Stock.withBook")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
         List<Stock> findByDeletedAtIsNull();
 
         @NonNull
+        @EntityGraph("Stock.withBook")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
         List<Stock> findByDeletedAtIsNullAndStatus(Integer status);
 
+        // 利用可能在庫数（監視用）
+        long countByDeletedAtIsNullAndStatus(Integer status);
+
         @NonNull
+        @EntityGraph("Stock.withBook")
         Optional<Stock> findById(String id);
 
-        @NonNull
-        List<Stock> findByBookMstIdAndStatus(Long book_id, Integer status);
+        // 貸出登録・更新時に在庫の行をロックする（SELECT ... FOR UPDATE、同じ在庫への登録を直列化する）
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select s from Stock s where s.id = ?1")
+        Optional<Stock> findByIdForUpdate(String id);
+
+        // 一括貸出登録用：複数の在庫の行を在庫管理番号順にロックする（ロック順を揃えてデッドロックを避ける）
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select s from Stock s where s.id in ?1 order by s.id")
+        List<Stock> findAllByIdInForUpdate(Collection<String> ids);
+
+        // 書籍名での貸出登録用：書籍の利用可能在庫の行を在庫管理番号順にロックする（割り当てる在庫の選択を直列化する）
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select s from Stock s where s.bookMst.id = ?1 and s.status = 0 and s.deletedAt is null order by s.id")
+        List<Stock> findAvailableByBookIdForUpdate(Long bookId);
+
+        // 在庫詳細：書籍と貸出履歴（社員を含む）をまとめて取得
+        @EntityGraph("Stock.withRentals")
+        @Query("select s from Stock s where s.id = ?1")
+        Optional<Stock> findWithRentalsById(String id);
 
-        @Query("SELECT COUNT(*) AS count " +
-                        "FROM BookMst bm " +
-                        "JOIN Stock s ON bm.id = s.bookMst.id AND s.status = 0 " +
-                        "GROUP BY bm.title")
-        List<Long> countStocksByBookTitle();
+        // 在庫一覧：表示中の在庫の貸出履歴（社員を含む）をまとめて取得
+        @EntityGraph("Stock.withRentals")
+        @Query("select distinct s from Stock s where s.id in ?1")
+        List<Stock> findWithRentalsByIdIn(Collection<String> ids);
 
-        // @Query("SELECT COUNT(DISTINCT bm.title) FROM Stock s JOIN s.bookMst bm WHERE
-        // s.status = 0")
-        // Long countStocksByBookTitle();
+        @NonNull
+        List<Stock> findByBookMstIdAndStatus(Long book_id, Integer status);
 
         @Query("select rm"
                         + " from RentalManage rm "
                         + " where (rm.status = 0 or rm.status = 1)")
         List<RentalManage> rentalManage0or1();
 
-        @Query(value = "SELECT s.id " +
-                        "FROM stocks s " +
-                        "LEFT JOIN rental_manage rm ON s.id = rm.stock_id " +
-                        "INNER JOIN book_mst bm ON s.book_id = bm.id " +
-                        "WHERE bm.title = ?1 AND (rm.expected_rental_on IS NULL OR rm.expected_rental_on > ?2 OR rm.expected_return_on < ?2) AND s.status = 0", nativeQuery = true)
-        List<String> stockIdAvailableRental(String title, LocalDate currentDate);
+        // 削除されていない利用可能在庫を書籍ID・在庫管理番号順に取得（在庫カレンダー用）
+        @Query("select new jp.co.metateam.library.model.StockSummary(s.id, bm.id, bm.title)"
+                        + " from Stock s join s.bookMst bm"
+                        + " where s.deletedAt is null and s.status = 0"
+                        + " order by bm.id, s.id")
+        List<StockSummary> findAvailableSummaries();
+
+        // 在庫一覧：削除されていない在庫を在庫管理番号?1より後から昇順に取得
+        @Query("select s from Stock s join fetch s.bookMst"
+                        + " where s.deletedAt is null and (?1 is null or s.id > ?1)"
+                        + " order by s.id asc")
+        List<Stock> findPageAscending(String after, Pageable pageable);
+
+        // 在庫一覧：在庫管理番号?1より前から降順に取得
+        @Query("select s from Stock s join fetch s.bookMst"
+                        + " where s.deletedAt is null and (?1 is null or s.id < ?1)"
+                        + " order by s.id desc")
+        List<Stock> findPageDescending(String before, Pageable pageable);
+
+        // 指定日に貸出待ち・貸出中の貸出がない利用可能在庫（在庫管理番号順、割り当ては StockAllocator で選ぶ）
+        @Query("select s.id from Stock s"
+                        + " where s.bookMst.id = ?1 and s.status = 0 and s.deletedAt is null"
+                        + " and not exists (select rm.id from RentalManage rm"
+                        + " where rm.stock = s and (rm.status = 0 or rm.status = 1)"
+                        + " and rm.expectedRentalOn <= ?2 and rm.expectedReturnOn >= ?2)"
+                        + " order by s.id")
+        List<String> findFreeStockIds(Long bookId, Date date);
+
+        // 期間 [?3, ?4) に貸出待ち・貸出中の貸出がない利用可能在庫（書籍ID?1、または書籍名が?2に一致する書籍、書籍ID・在庫管理番号順）
+        // 重複の条件は existsOverlap と同じ（貸出管理番号?5は除く）
+        @Query("select new jp.co.metateam.library.model.StockSummary(s.id, bm.id, bm.title)"
+                        + " from Stock s join s.bookMst bm"
+                        + " where s.status = 0 and s.deletedAt is null"
+                        + " and (?1 is null or bm.id = ?1) and (?2 is null or bm.title like ?2 escape '!')"
+                        + " and not exists (select rm.id from RentalManage rm"
+                        + " where rm.stock = s and (rm.status = 0 or rm.status = 1) and rm.id <> ?5"
+                        + " and rm.expectedRentalOn < ?4 and rm.expectedReturnOn > ?3)"
+                        + " order by bm.id, s.id")
+        List<StockSummary> findFreeStocksBetween(Long bookId, String titlePattern, Date from, Date to,
+                        Long excludedRentalId, Pageable pageable);
 
 }
\ No newline at end of file
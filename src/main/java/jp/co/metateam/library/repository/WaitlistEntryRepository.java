@@ -0,0 +1,34 @@
+package jp.co.metateam.library.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import jp.co.metateam.library.model.WaitlistEntry;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+        // 書籍の順番待ちの先頭をロックして取得する（idx_waitlist_entries_book_status_id の1行目のみ読む、1件を指定すること）
+        // 同時に返却された場合も、同じ順番待ちを二重に繰り上げない
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select w from WaitlistEntry w where w.bookMst.id = ?1 and w.status = 0 order by w.id")
+        List<WaitlistEntry> findHeadForUpdate(Long bookId, Pageable pageable);
+
+        // 順番待ち一覧：順番待ち中の登録を書籍ID・順番待ち番号順に取得
+        @Query("select w from WaitlistEntry w join fetch w.bookMst join fetch w.account"
+                        + " where w.status = 0 order by w.bookMst.id, w.id")
+        List<WaitlistEntry> findWaiting();
+
+        // 繰り上げの再試行用：順番待ち中の登録がある書籍
+        @Query("select distinct w.bookMst.id from WaitlistEntry w where w.status = 0")
+        List<Long> findWaitingBookIds();
+
+        // 同じ社員が同じ書籍を順番待ち中か
+        boolean existsByBookMstIdAndAccountEmployeeIdAndStatus(Long bookId, String employeeId, Integer status);
+}
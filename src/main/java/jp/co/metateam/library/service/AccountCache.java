@@ -0,0 +1,136 @@
+package jp.co.metateam.library.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jp.co.metateam.library.model.Account;
+import jp.co.metateam.library.repository.AccountRepository;
+
+/**
+ * アカウントのキャッシュ（メールアドレス・社員番号の索引と、選択肢用の全件）
+ * ログインと貸出の登録・更新のたびにアカウントを検索しないよう、アプリケーション内に保持する。
+ * アカウントの登録（AccountService.save）のコミット後にすべて破棄する。
+ * 存在しないことも保持するため、DBを直接更新した場合に備えて一定時間で破棄する。
+ *
+ * 保持するアカウントはどのトランザクションにも属さない（関連の貸出は参照しない）。
+ * 貸出に関連付ける場合は AccountRepository.getReferenceById を使う。
+ */
+@Component
+public class AccountCache {
+
+    private static final String ALL = "all";
+
+    private final AccountRepository accountRepository;
+
+    private final Cache<String, Optional<Account>> byEmail;
+    private final Cache<String, Optional<Account>> byEmployeeId;
+    private final Cache<String, List<Account>> all;
+
+    @Autowired
+    public AccountCache(AccountRepository accountRepository, MeterRegistry registry,
+            @Value("${library.account-cache.max-entries:10000}") long maxEntries,
+            @Value("${library.account-cache.expire-minutes:10}") long expireMinutes) {
+        this.accountRepository = accountRepository;
+
+        Duration expiry = Duration.ofMinutes(expireMinutes);
+        this.byEmail = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(expiry).recordStats().build();
+        this.byEmployeeId = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(expiry).recordStats()
+                .build();
+        this.all = Caffeine.newBuilder().maximumSize(1).expireAfterWrite(expiry).recordStats().build();
+
+        // ヒット率は cache_gets_total{result="hit|miss"} から求める
+        CaffeineCacheMetrics.monitor(registry, this.byEmail, "accounts.byEmail");
+        CaffeineCacheMetrics.monitor(registry, this.byEmployeeId, "accounts.byEmployeeId");
+        CaffeineCacheMetrics.monitor(registry, this.all, "accounts.all");
+    }
+
+    public Account findByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return this.byEmail.get(email, key -> Optional.ofNullable(this.accountRepository.findByEmail(key)))
+                .orElse(null);
+    }
+
+    public Account findByEmployeeId(String employeeId) {
+        if (employeeId == null) {
+            return null;
+        }
+        return this.byEmployeeId.get(employeeId, this.accountRepository::findByEmployeeId).orElse(null);
+    }
+
+    /**
+     * 複数の社員番号のアカウント（社員番号 → アカウント、存在しない社員は含まない）
+     * キャッシュにない社員はIN句1回でまとめて読み込み、存在しないことも含めてキャッシュに登録する。
+     */
+    public Map<String, Account> findAllByEmployeeIds(Collection<String> employeeIds) {
+        Map<String, Account> accounts = new HashMap<>();
+        this.byEmployeeId.getAll(employeeIds, this::loadByEmployeeIds)
+                .forEach((employeeId, account) -> account.ifPresent(found -> accounts.put(employeeId, found)));
+        return accounts;
+    }
+
+    private Map<String, Optional<Account>> loadByEmployeeIds(Set<? extends String> employeeIds) {
+        Map<String, Optional<Account>> loaded = new HashMap<>();
+        for (String employeeId : employeeIds) {
+            loaded.put(employeeId, Optional.empty());
+        }
+        for (Account account : this.accountRepository.findByEmployeeIdIn(List.copyOf(employeeIds))) {
+            loaded.put(account.getEmployeeId(), Optional.of(account));
+        }
+        return loaded;
+    }
+
+    /**
+     * 全アカウント（画面の選択肢用、すべての画面で同じ一覧を共有する。変更しないこと）
+     */
+    public List<Account> findAll() {
+        return this.all.get(ALL, key -> {
+            List<Account> accounts = List.copyOf(this.accountRepository.findAll());
+            // 全件を読み込んだ場合は、索引にも登録する
+            for (Account account : accounts) {
+                this.byEmail.put(account.getEmail(), Optional.of(account));
+                this.byEmployeeId.put(account.getEmployeeId(), Optional.of(account));
+            }
+            return accounts;
+        });
+    }
+
+    /**
+     * コミット後にすべて破棄する（トランザクション外の場合は即時）
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        this.all.invalidateAll();
+        this.byEmail.invalidateAll();
+        this.byEmployeeId.invalidateAll();
+    }
+}
@@ -0,0 +1,159 @@
+package jp.co.metateam.library.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jp.co.metateam.library.model.Account;
+import jp.co.metateam.library.model.AccountOption;
+
+/**
+ * 社員番号・氏名の前方一致検索（貸出登録・編集画面の入力補完用）
+ * AccountCache の全件から正規化したキーの整列済み配列を作り、二分探索で候補を返す（SQLは実行しない）。
+ * アカウントが登録され全件のキャッシュが作り直されると、次の検索時に索引も作り直す。
+ *
+ * 正規化：NFKC（全角英数・半角カナの統一）、小文字化、カタカナ→ひらがな、空白の除去。
+ * 氏名は全体に加えて空白で区切った各部分（名のみ）でも一致させる。
+ */
+@Component
+public class AccountSearchIndex {
+
+    private final AccountCache accountCache;
+
+    private volatile Index index = new Index(List.of());
+
+    @Autowired
+    public AccountSearchIndex(AccountCache accountCache) {
+        this.accountCache = accountCache;
+    }
+
+    /**
+     * 前方一致する社員（キーの昇順、同じ社員は1件のみ）
+     *
+     * @param query 社員番号・氏名の先頭（カナはひらがな・カタカナ・半角のいずれでもよい）
+     * @param limit 最大件数
+     */
+    public List<AccountOption> search(String query, int limit) {
+        String prefix = query == null ? "" : normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return current().search(prefix, limit);
+    }
+
+    private Index current() {
+        List<Account> accounts = this.accountCache.findAll();
+        Index current = this.index;
+        // 全件のキャッシュが同じ一覧を返す間は作り直さない
+        if (current.source != accounts) {
+            current = new Index(accounts);
+            this.index = current;
+        }
+        return current;
+    }
+
+    static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            // カタカナ（ァ〜ヶ）は対応するひらがなに揃える
+            if (c >= 'ァ' && c <= 'ヶ') {
+                c = (char) (c - 0x60);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 検索用の索引（作成後は変更しない）
+     */
+    private static class Index {
+        private final List<Account> source;
+        private final AccountOption[] options;
+        private final String[] keys;
+        private final int[] optionIndexes;
+
+        private Index(List<Account> accounts) {
+            this.source = accounts;
+            this.options = new AccountOption[accounts.size()];
+
+            List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < accounts.size(); i++) {
+                Account account = accounts.get(i);
+                this.options[i] = new AccountOption(account.getEmployeeId(), account.getName());
+
+                Set<String> accountKeys = new LinkedHashSet<>();
+                if (account.getEmployeeId() != null) {
+                    accountKeys.add(normalize(account.getEmployeeId()));
+                }
+                if (account.getName() != null) {
+                    accountKeys.add(normalize(account.getName()));
+                    for (String part : account.getName().split("[\\s　]+")) {
+                        accountKeys.add(normalize(part));
+                    }
+                }
+                for (String key : accountKeys) {
+                    if (!key.isEmpty()) {
+                        entries.add(new Entry(key, i));
+                    }
+                }
+            }
+            entries.sort(Comparator.comparing((Entry entry) -> entry.key));
+
+            this.keys = new String[entries.size()];
+            this.optionIndexes = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                this.keys[i] = entries.get(i).key;
+                this.optionIndexes[i] = entries.get(i).optionIndex;
+            }
+        }
+
+        private List<AccountOption> search(String prefix, int limit) {
+            int position = Arrays.binarySearch(this.keys, prefix);
+            if (position < 0) {
+                position = -position - 1;
+            }
+            // 完全一致のキーが複数ある場合は先頭から読む
+            while (position > 0 && this.keys[position - 1].equals(prefix)) {
+                position--;
+            }
+
+            Set<Integer> found = new LinkedHashSet<>();
+            for (int i = position; i < this.keys.length && found.size() < limit; i++) {
+                if (!this.keys[i].startsWith(prefix)) {
+                    break;
+                }
+                found.add(this.optionIndexes[i]);
+            }
+
+            List<AccountOption> results = new ArrayList<>(found.size());
+            for (int optionIndex : found) {
+                results.add(this.options[optionIndex]);
+            }
+            return results;
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final int optionIndex;
+
+        private Entry(String key, int optionIndex) {
+            this.key = key;
+            this.optionIndex = optionIndex;
+        }
+    }
+}
@@ -18,17 +18,20 @@ import jp.co.metateam.library.repository.AccountRepository;
 public class AccountService implements UserDetailsService {
 
     private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
     private final PasswordEncoder passwordEncoder;
 
     @Autowired
-    public AccountService(AccountRepository accountRepository, PasswordEncoder passwordEncoder){
+    public AccountService(AccountRepository accountRepository, AccountCache accountCache,
+            PasswordEncoder passwordEncoder){
         this.accountRepository = accountRepository;
+        this.accountCache = accountCache;
         this.passwordEncoder = passwordEncoder;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        Account account = this.accountRepository.findByEmail(email);
+        Account account = this.accountCache.findByEmail(email);
         if (account == null) {
             throw new UsernameNotFoundException("User not found");
         }
@@ -36,15 +39,15 @@ public class AccountService implements UserDetailsService {
     }
 
     public Account findByEmail(String email) {
-        return this.accountRepository.findByEmail(email);
+        return this.accountCache.findByEmail(email);
     }
 
     public Account findByEmployeeId(String employeeId) {
-        return this.accountRepository.findByEmployeeId(employeeId).orElse(null);
+        return this.accountCache.findByEmployeeId(employeeId);
     }
 
     public List<Account> findAll() {
-        return this.accountRepository.findAll();
+        return this.accountCache.findAll();
     }
 
     @Transactional
@@ -61,6 +64,7 @@ public class AccountService implements UserDetailsService {
 
             // データベースへの保存
             this.accountRepository.save(account);
+            this.accountCache.invalidateAfterCommit();
         } catch (Exception e) {
             throw e;
         }
@@ -0,0 +1,424 @@
+package jp.co.metateam.library.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jp.co.metateam.library.model.RentalPeriod;
+import jp.co.metateam.library.model.StockSummary;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.repository.StockRepository;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 書籍ごとの日別貸出可能数と、在庫ごとの貸出期間を保持するメモリ上の索引
+ * 起動時に在庫・貸出管理から構築し、以降は登録・更新のコミット後に差分を反映する。
+ * 差分は変更した書籍・在庫の要素（生成後は変更しない）だけを作り直して差し替える。
+ * 1件の変更で同じ書籍・在庫を2回更新する場合（期間の変更など）も1つの要素にまとめてから差し替えるため、
+ * 参照側はロックを取らず、書籍・在庫ごとには1件の変更の一部だけが反映された状態を見ることはない。
+ */
+@Log4j2
+@Component
+public class AvailabilityIndex {
+
+    private static final int MAX_BUILD_ATTEMPTS = 10;
+
+    private static final Duration BUILD_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final StockRepository stockRepository;
+    private final RentalManageRepository rentalManageRepository;
+    private final DataVersion dataVersion;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final int pastDays;
+    private final int futureDays;
+
+    /** 更新処理の排他用 */
+    private final Object lock = new Object();
+
+    /** コミット中の更新件数 */
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+
+    /** 反映済みの更新回数 */
+    private long generation;
+
+    /** 構築前はnull */
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public AvailabilityIndex(StockRepository stockRepository, RentalManageRepository rentalManageRepository,
+            DataVersion dataVersion, TaskScheduler taskScheduler, PlatformTransactionManager transactionManager,
+            @Value("${library.availability.past-days:30}") int pastDays,
+            @Value("${library.availability.future-days:365}") int futureDays) {
+        this.stockRepository = stockRepository;
+        this.rentalManageRepository = rentalManageRepository;
+        this.dataVersion = dataVersion;
+        this.taskScheduler = taskScheduler;
+        // 構築はリクエスト外で実行されるため、読み取り専用にせずプライマリから在庫・貸出を同じトランザクションで読む
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+    }
+
+    public boolean isReady() {
+        return this.snapshot != null;
+    }
+
+    /**
+     * 利用可能在庫数（未構築の場合はnull）
+     */
+    public Integer getStockCount(Long bookId) {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            return null;
+        }
+        BookRow row = current.rows.get(bookId);
+        return row != null ? row.stockCount : 0;
+    }
+
+    /**
+     * 指定日の貸出可能数（未構築・範囲外の場合はnull）
+     */
+    public Integer getFreeCount(Long bookId, LocalDate date) {
+        Snapshot current = this.snapshot;
+        if (current == null || !current.covers(date, date)) {
+            return null;
+        }
+        BookRow row = current.rows.get(bookId);
+        return row != null ? row.freeCounts[current.indexOf(date)] : 0;
+    }
+
+    /**
+     * 指定期間の日別貸出可能数（未構築・範囲外の場合はnull）
+     */
+    public long[] getFreeCounts(Long bookId, LocalDate from, int days) {
+        Snapshot current = this.snapshot;
+        if (current == null || !current.covers(from, from.plusDays(days - 1))) {
+            return null;
+        }
+        long[] freeCounts = new long[days];
+        BookRow row = current.rows.get(bookId);
+        if (row != null) {
+            int offset = current.indexOf(from);
+            for (int day = 0; day < days; day++) {
+                freeCounts[day] = row.freeCounts[offset + day];
+            }
+        }
+        return freeCounts;
+    }
+
+    /**
+     * 指定在庫に期間 [from, to) と重なる貸出待ち・貸出中の貸出があるか（未構築の場合はnull）
+     */
+    public Boolean overlaps(String stockId, LocalDate from, LocalDate to, Long excludedRentalId) {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            return null;
+        }
+        StockIntervals intervals = current.intervals.getOrDefault(stockId, StockIntervals.EMPTY);
+        return intervals.overlaps(from.toEpochDay(), to.toEpochDay(), excludedRentalId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 日付の経過に合わせて集計範囲をずらす
+     * 更新が続いて構築できなかった場合は、時間をおいて構築し直す。
+     */
+    @Scheduled(cron = "${library.availability.rebuild-cron:0 5 0 * * *}")
+    public void rebuild() {
+        for (int attempt = 1; attempt <= MAX_BUILD_ATTEMPTS; attempt++) {
+            long startGeneration;
+            synchronized (this.lock) {
+                startGeneration = this.generation;
+            }
+            int startPending = this.pendingChanges.get();
+
+            Snapshot built = this.transactionTemplate.execute(
+                    status -> build(LocalDate.now(ZoneId.systemDefault())));
+
+            synchronized (this.lock) {
+                // 構築中にコミットされた更新があれば、取りこぼし・二重反映を避けるため作り直す
+                if (startPending == 0 && this.pendingChanges.get() == 0 && this.generation == startGeneration) {
+                    this.snapshot = built;
+                    this.dataVersion.bump();
+                    log.info("Availability index built: {} books", built.rows.size());
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(100L * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.warn("Availability index build postponed: concurrent updates did not settle, retrying in {}",
+                BUILD_RETRY_DELAY);
+        this.taskScheduler.schedule(this::rebuild, Instant.now().plus(BUILD_RETRY_DELAY));
+    }
+
+    @EventListener
+    public void onRentalChanged(RentalChangedEvent event) {
+        afterCommit(edit -> {
+            applyRental(edit, event.getBefore(), 1);
+            applyRental(edit, event.getAfter(), -1);
+            applyInterval(edit, event.getRentalId(), event.getBefore(), event.getAfter());
+        });
+    }
+
+    @EventListener
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.isAvailableBefore() == event.isAvailableAfter()) {
+            return;
+        }
+        afterCommit(edit -> {
+            int delta = event.isAvailableAfter() ? 1 : -1;
+            BookRow row = edit.row(event.getBookId());
+            int[] freeCounts = row.freeCounts.clone();
+            for (int day = 0; day < freeCounts.length; day++) {
+                freeCounts[day] += delta;
+            }
+            edit.putRow(event.getBookId(), new BookRow(row.stockCount + delta, freeCounts));
+        });
+    }
+
+    private void applyRental(SnapshotEdit edit, RentalPeriod period, int delta) {
+        if (period == null) {
+            return;
+        }
+        Snapshot base = edit.base;
+        LocalDate from = AvailabilityService.toLocalDate(period.getExpectedRentalOn());
+        LocalDate to = AvailabilityService.toLocalDate(period.getExpectedReturnOn());
+        int startDay = Math.max(0, base.indexOf(from));
+        int endDay = Math.min(base.days - 1, base.indexOf(to));
+        if (startDay > endDay) {
+            return;
+        }
+
+        // 同じ変更で同じ書籍を2回更新する場合（期間の変更）は、1回目の結果に重ねる
+        BookRow row = edit.row(period.getBookId());
+        int[] freeCounts = row.freeCounts.clone();
+        for (int day = startDay; day <= endDay; day++) {
+            freeCounts[day] += delta;
+        }
+        edit.putRow(period.getBookId(), new BookRow(row.stockCount, freeCounts));
+    }
+
+    private void applyInterval(SnapshotEdit edit, Long rentalId, RentalPeriod before, RentalPeriod after) {
+        if (before != null) {
+            StockIntervals intervals = edit.intervals(before.getStockId());
+            if (intervals != StockIntervals.EMPTY) {
+                edit.putIntervals(before.getStockId(), intervals.without(rentalId));
+            }
+        }
+        if (after != null) {
+            StockIntervals intervals = edit.intervals(after.getStockId());
+            edit.putIntervals(after.getStockId(), intervals.with(rentalId,
+                    AvailabilityService.toLocalDate(after.getExpectedRentalOn()).toEpochDay(),
+                    AvailabilityService.toLocalDate(after.getExpectedReturnOn()).toEpochDay()));
+        }
+    }
+
+    /**
+     * コミット後に反映する（トランザクション外の場合は即時）
+     */
+    private void afterCommit(Consumer<SnapshotEdit> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyChange(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean counted;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                pendingChanges.incrementAndGet();
+                this.counted = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                applyChange(change);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (this.counted) {
+                    pendingChanges.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * 変更後の要素を作り、変更した書籍・在庫の要素だけを差し替える（未構築の場合は構築時に反映される）
+     */
+    private void applyChange(Consumer<SnapshotEdit> change) {
+        synchronized (this.lock) {
+            this.generation++;
+            Snapshot current = this.snapshot;
+            if (current != null) {
+                SnapshotEdit edit = new SnapshotEdit(current);
+                change.accept(edit);
+                edit.apply();
+            }
+            this.dataVersion.bump();
+        }
+    }
+
+    private Snapshot build(LocalDate today) {
+        LocalDate firstDay = today.minusDays(this.pastDays);
+        int days = this.pastDays + this.futureDays + 1;
+        Snapshot built = new Snapshot(firstDay, days);
+
+        Map<Long, Integer> stockCounts = new HashMap<>();
+        for (StockSummary stock : this.stockRepository.findAvailableSummaries()) {
+            stockCounts.merge(stock.getBookId(), 1, Integer::sum);
+        }
+
+        // 貸出期間の開始・終了を差分として積み上げる（在庫ごとの貸出期間は集計範囲に関係なく保持する）
+        Map<Long, int[]> rentalDeltas = new HashMap<>();
+        Map<String, List<long[]>> intervalEntries = new HashMap<>();
+        for (RentalPeriod period : this.rentalManageRepository.findActivePeriods()) {
+            LocalDate from = AvailabilityService.toLocalDate(period.getExpectedRentalOn());
+            LocalDate to = AvailabilityService.toLocalDate(period.getExpectedReturnOn());
+            intervalEntries.computeIfAbsent(period.getStockId(), key -> new ArrayList<>())
+                    .add(new long[] { period.getRentalId(), from.toEpochDay(), to.toEpochDay() });
+
+            int startDay = Math.max(0, built.indexOf(from));
+            int endDay = Math.min(days - 1, built.indexOf(to));
+            if (startDay > endDay) {
+                continue;
+            }
+            int[] delta = rentalDeltas.computeIfAbsent(period.getBookId(), key -> new int[days + 1]);
+            delta[startDay]++;
+            delta[endDay + 1]--;
+        }
+
+        for (Long bookId : stockCounts.keySet()) {
+            rentalDeltas.computeIfAbsent(bookId, key -> new int[days + 1]);
+        }
+        for (Map.Entry<Long, int[]> entry : rentalDeltas.entrySet()) {
+            int stockCount = stockCounts.getOrDefault(entry.getKey(), 0);
+            int[] freeCounts = new int[days];
+            int rentalCount = 0;
+            for (int day = 0; day < days; day++) {
+                rentalCount += entry.getValue()[day];
+                freeCounts[day] = stockCount - rentalCount;
+            }
+            built.rows.put(entry.getKey(), new BookRow(stockCount, freeCounts));
+        }
+        for (Map.Entry<String, List<long[]>> entry : intervalEntries.entrySet()) {
+            built.intervals.put(entry.getKey(), StockIntervals.of(entry.getValue()));
+        }
+
+        return built;
+    }
+
+    /**
+     * 書籍1冊分の索引（生成後は変更しない）
+     */
+    private static final class BookRow {
+        private final int stockCount;
+        private final int[] freeCounts;
+
+        private BookRow(int stockCount, int[] freeCounts) {
+            this.stockCount = stockCount;
+            this.freeCounts = freeCounts;
+        }
+    }
+
+    /**
+     * 索引（集計範囲は構築後に変更せず、要素は書籍・在庫ごとに差し替える）
+     */
+    private static final class Snapshot {
+        private final long firstEpochDay;
+        private final int days;
+        private final Map<Long, BookRow> rows = new ConcurrentHashMap<>();
+        private final Map<String, StockIntervals> intervals = new ConcurrentHashMap<>();
+
+        private Snapshot(LocalDate firstDay, int days) {
+            this.firstEpochDay = firstDay.toEpochDay();
+            this.days = days;
+        }
+
+        private int indexOf(LocalDate date) {
+            return (int) (date.toEpochDay() - this.firstEpochDay);
+        }
+
+        private boolean covers(LocalDate from, LocalDate to) {
+            return indexOf(from) >= 0 && indexOf(to) < this.days;
+        }
+
+        private BookRow emptyRow() {
+            return new BookRow(0, new int[this.days]);
+        }
+    }
+
+    /**
+     * 1件の変更の反映中の要素（更新処理の排他の中でのみ使う）
+     * 変更した書籍・在庫の要素だけを保持し、最後にまとめて索引の要素と差し替える。
+     */
+    private static final class SnapshotEdit {
+        private final Snapshot base;
+        private final Map<Long, BookRow> rows = new HashMap<>();
+        private final Map<String, StockIntervals> intervals = new HashMap<>();
+
+        private SnapshotEdit(Snapshot base) {
+            this.base = base;
+        }
+
+        private BookRow row(Long bookId) {
+            BookRow row = this.rows.get(bookId);
+            if (row == null) {
+                row = this.base.rows.get(bookId);
+            }
+            return row != null ? row : this.base.emptyRow();
+        }
+
+        private void putRow(Long bookId, BookRow row) {
+            this.rows.put(bookId, row);
+        }
+
+        private StockIntervals intervals(String stockId) {
+            StockIntervals stockIntervals = this.intervals.get(stockId);
+            if (stockIntervals == null) {
+                stockIntervals = this.base.intervals.getOrDefault(stockId, StockIntervals.EMPTY);
+            }
+            return stockIntervals;
+        }
+
+        private void putIntervals(String stockId, StockIntervals stockIntervals) {
+            this.intervals.put(stockId, stockIntervals);
+        }
+
+        private void apply() {
+            this.base.rows.putAll(this.rows);
+            this.base.intervals.putAll(this.intervals);
+        }
+    }
+}
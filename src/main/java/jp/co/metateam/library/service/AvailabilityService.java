@@ -0,0 +1,148 @@
+package jp.co.metateam.library.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jp.co.metateam.library.model.BookAvailability;
+import jp.co.metateam.library.model.BookMst;
+import jp.co.metateam.library.model.RentalPeriod;
+import jp.co.metateam.library.model.StockSummary;
+import jp.co.metateam.library.repository.BookMstRepository;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.repository.StockRepository;
+
+/**
+ * 在庫の貸出可否を集計するクラス
+ * 常駐索引（AvailabilityIndex）が対象月を保持していればそこから読み出し、
+ * 保持していなければ在庫と貸出期間をそれぞれ1回のSQLで取得してメモリ上で算出する。
+ */
+@Service
+public class AvailabilityService {
+
+    private final BookMstRepository bookMstRepository;
+    private final StockRepository stockRepository;
+    private final RentalManageRepository rentalManageRepository;
+    private final AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    public AvailabilityService(BookMstRepository bookMstRepository, StockRepository stockRepository,
+            RentalManageRepository rentalManageRepository, AvailabilityIndex availabilityIndex) {
+        this.bookMstRepository = bookMstRepository;
+        this.stockRepository = stockRepository;
+        this.rentalManageRepository = rentalManageRepository;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookAvailability> calculateMonth(int year, int month) {
+        YearMonth yearMonth = YearMonth.of(year, month);
+        LocalDate firstDay = yearMonth.atDay(1);
+        int daysInMonth = yearMonth.lengthOfMonth();
+
+        List<BookAvailability> indexed = readIndex(firstDay, daysInMonth);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        // 書籍ごとの利用可能在庫（書籍ID・在庫管理番号順）
+        Map<Long, List<StockSummary>> stocksByBook = new LinkedHashMap<>();
+        for (StockSummary stock : this.stockRepository.findAvailableSummaries()) {
+            stocksByBook.computeIfAbsent(stock.getBookId(), key -> new ArrayList<>()).add(stock);
+        }
+
+        // 月内に掛かる貸出期間（書籍ごと）
+        Map<Long, List<RentalPeriod>> periodsByBook = new HashMap<>();
+        List<RentalPeriod> periods = this.rentalManageRepository.findActivePeriodsBetween(
+                toDate(firstDay), toDate(yearMonth.atEndOfMonth()));
+        for (RentalPeriod period : periods) {
+            periodsByBook.computeIfAbsent(period.getBookId(), key -> new ArrayList<>()).add(period);
+        }
+
+        List<BookAvailability> availabilities = new ArrayList<>();
+        for (Map.Entry<Long, List<StockSummary>> entry : stocksByBook.entrySet()) {
+            List<StockSummary> stocks = entry.getValue();
+            long[] freeCounts = sweep(stocks.size(), periodsByBook.getOrDefault(entry.getKey(), List.of()),
+                    firstDay, daysInMonth);
+            availabilities.add(new BookAvailability(entry.getKey(), stocks.get(0).getTitle(), stocks.size(),
+                    freeCounts));
+        }
+
+        return availabilities;
+    }
+
+    /**
+     * 常駐索引から月間の在庫状況を組み立てる（索引が未構築・範囲外の場合はnull）
+     */
+    private List<BookAvailability> readIndex(LocalDate firstDay, int daysInMonth) {
+        if (!this.availabilityIndex.isReady()) {
+            return null;
+        }
+
+        List<BookAvailability> availabilities = new ArrayList<>();
+        for (BookMst book : this.bookMstRepository.findAll(Sort.by("id"))) {
+            long[] freeCounts = this.availabilityIndex.getFreeCounts(book.getId(), firstDay, daysInMonth);
+            Integer stockCount = this.availabilityIndex.getStockCount(book.getId());
+            if (freeCounts == null || stockCount == null) {
+                return null;
+            }
+            // 利用可能在庫のない書籍は表示しない
+            if (stockCount > 0) {
+                availabilities.add(new BookAvailability(book.getId(), book.getTitle(), stockCount, freeCounts));
+            }
+        }
+
+        return availabilities;
+    }
+
+    /**
+     * 貸出期間の開始・終了をイベントとして日付順に走査し、書籍1冊分の日別貸出可能数を算出する
+     * 利用不可の在庫に紐づく貸出も含めて数える。
+     */
+    private long[] sweep(int stockCount, List<RentalPeriod> periods, LocalDate firstDay, int daysInMonth) {
+        // 日ごとの貸出数の増減（貸出予定日・返却予定日とも当日を含む）
+        int[] rentalDelta = new int[daysInMonth + 1];
+        for (RentalPeriod period : periods) {
+            int startDay = (int) Math.max(0, ChronoUnit.DAYS.between(firstDay, toLocalDate(period.getExpectedRentalOn())));
+            int endDay = (int) Math.min(daysInMonth - 1,
+                    ChronoUnit.DAYS.between(firstDay, toLocalDate(period.getExpectedReturnOn())));
+            if (startDay > endDay) {
+                continue;
+            }
+            rentalDelta[startDay]++;
+            rentalDelta[endDay + 1]--;
+        }
+
+        long[] freeCounts = new long[daysInMonth];
+        int rentalCount = 0;
+        for (int day = 0; day < daysInMonth; day++) {
+            rentalCount += rentalDelta[day];
+            freeCounts[day] = stockCount - rentalCount;
+        }
+
+        return freeCounts;
+    }
+
+    static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    static LocalDate toLocalDate(Date date) {
+        if (date instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
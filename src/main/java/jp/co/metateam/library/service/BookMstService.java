@@ -1,33 +1,37 @@
 package jp.co.metateam.library.service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import io.micrometer.common.util.StringUtils;
-import jp.co.metateam.library.constants.Constants;
+import io.micrometer.core.annotation.Timed;
 import jp.co.metateam.library.model.BookMst;
 import jp.co.metateam.library.model.BookMstDto;
-import jp.co.metateam.library.model.Stock;
+import jp.co.metateam.library.model.KeysetPage;
 import jp.co.metateam.library.repository.BookMstRepository;
-import jp.co.metateam.library.repository.StockRepository;
 
 @Service
+@Timed(value = "library.service", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 public class BookMstService {
 
     private final BookMstRepository bookMstRepository;
-    private final StockRepository stockRepository;
+    private final DataVersion dataVersion;
+    private final int pageSize;
     
     @Autowired
-    public BookMstService(BookMstRepository bookMstRepository, StockRepository stockRepository){
+    public BookMstService(BookMstRepository bookMstRepository, DataVersion dataVersion,
+            @Value("${library.page-size:20}") int pageSize){
         this.bookMstRepository = bookMstRepository;
-        this.stockRepository = stockRepository;
+        this.dataVersion = dataVersion;
+        this.pageSize = pageSize;
     }
 
     public List<BookMst> findAll() {
@@ -38,24 +42,39 @@ public class BookMstService {
         return this.bookMstRepository.findById(id);
     }
     
-    public List<BookMstDto> findAvailableWithStockCount() {
-        List<BookMst> books = this.bookMstRepository.findAll();
-        List<BookMstDto> bookMstDtoList = new ArrayList<BookMstDto>();
-
-        // 書籍の在庫数を取得
-        // FIXME: 現状は書籍ID毎にDBに問い合わせている。一度のSQLで完了させたい。
-        for (int i = 0; i < books.size(); i++) {
-            BookMst book = books.get(i);
-            List<Stock> stockCount = this.stockRepository.findByBookMstIdAndStatus(book.getId(), Constants.STOCK_AVAILABLE);
-            BookMstDto bookMstDto = new BookMstDto();
-            bookMstDto.setId(book.getId());
-            bookMstDto.setIsbn(book.getIsbn());
-            bookMstDto.setTitle(book.getTitle());
-            bookMstDto.setStockCount(stockCount.size());
-            bookMstDtoList.add(bookMstDto);
-        }
+    /**
+     * 書籍一覧の1ページ分（書籍ID順、在庫数は1回のSQLで集計）
+     *
+     * @param after  次ページ取得時のカーソル（書籍ID）
+     * @param before 前ページ取得時のカーソル（書籍ID）
+     * @param order  並び順（asc / desc）
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<BookMstDto> findAvailableWithStockCount(String after, String before, String order) {
+        String normalizedOrder = KeysetPage.normalizeOrder(order);
+        boolean backward = before != null;
+        Long cursor = parseCursor(backward ? before : after);
+        boolean ascending = "asc".equals(normalizedOrder) != backward;
+
+        PageRequest limit = PageRequest.of(0, this.pageSize + 1);
+        List<BookMstDto> fetched = ascending
+                ? this.bookMstRepository.findPageAscending(cursor, limit)
+                : this.bookMstRepository.findPageDescending(cursor, limit);
+
+        return KeysetPage.of(fetched, this.pageSize, backward, cursor != null, normalizedOrder,
+                book -> String.valueOf(book.getId()));
+    }
 
-        return bookMstDtoList;
+    private Long parseCursor(String cursor) {
+        if (StringUtils.isEmpty(cursor)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            // 不正なカーソルは先頭ページとして扱う
+            return null;
+        }
     }
     
     @Transactional
@@ -68,6 +87,7 @@ public class BookMstService {
 
             // データベースへの保存
             this.bookMstRepository.save(book);
+            this.dataVersion.bumpAfterCommit();
         } catch (Exception e) {
             throw e;
         }
@@ -87,6 +107,7 @@ public class BookMstService {
 
             // データベースへの保存
             this.bookMstRepository.save(updateTargetBook);
+            this.dataVersion.bumpAfterCommit();
         } catch (Exception e) {
             throw e;
         }
@@ -0,0 +1,364 @@
+package jp.co.metateam.library.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import jp.co.metateam.library.constants.Constants;
+import jp.co.metateam.library.model.CatalogImportResult;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 書籍・在庫のCSV取込（isbn,title,stock_id,price,status）
+ * CSVは1行ずつ読み、一定行数ごとに1トランザクションで登録する（メモリ使用量はファイルの大きさによらない）。
+ * 書籍はISBNで登録・更新し、在庫は在庫管理番号がなければ登録する。存在確認はチャンクごとのIN句1回で行う。
+ * stock_idが空の行は書籍のみ登録する。
+ */
+@Log4j2
+@Service
+public class CatalogImportService {
+
+    private static final String UPSERT_BOOK_SQL = "INSERT INTO book_mst (isbn, title) VALUES (?, ?)"
+            + " ON DUPLICATE KEY UPDATE title = VALUES(title)";
+
+    private static final String INSERT_STOCK_SQL = "INSERT INTO stocks (id, book_id, status, price) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final AvailabilityIndex availabilityIndex;
+    private final DataVersion dataVersion;
+    private final int chunkSize;
+    private final String importDirectory;
+
+    @Autowired
+    public CatalogImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory, AvailabilityIndex availabilityIndex, DataVersion dataVersion,
+            @Value("${library.import.chunk-size:1000}") int chunkSize,
+            @Value("${library.import.directory:}") String importDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.availabilityIndex = availabilityIndex;
+        this.dataVersion = dataVersion;
+        this.chunkSize = chunkSize;
+        this.importDirectory = importDirectory;
+    }
+
+    /**
+     * 取込用ディレクトリ内のファイルを取り込む
+     *
+     * @param fileName 取込用ディレクトリからの相対パス
+     */
+    public CatalogImportResult importFile(String fileName) throws IOException {
+        if (this.importDirectory.isEmpty()) {
+            throw new IllegalArgumentException("Import directory is not configured.");
+        }
+        Path baseDirectory = Path.of(this.importDirectory).toAbsolutePath().normalize();
+        Path file = baseDirectory.resolve(fileName).normalize();
+        if (!file.startsWith(baseDirectory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Import file not found: " + fileName);
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCsv(reader);
+        }
+    }
+
+    public CatalogImportResult importCsv(Reader reader) throws IOException {
+        CatalogImportResult result = new CatalogImportResult();
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        List<CatalogLine> chunk = new ArrayList<>(this.chunkSize);
+
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1) {
+                // BOMと見出し行を読み飛ばす
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.toLowerCase().startsWith("isbn")) {
+                    continue;
+                }
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+
+            chunk.add(new CatalogLine(lineNumber, line));
+            if (chunk.size() >= this.chunkSize) {
+                importChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        // JDBCで直接登録したため、第2レベルキャッシュ（クエリキャッシュを含む）と在庫索引を作り直す
+        // 一覧のETag・断片キャッシュは索引の構築の成否によらず無効にする
+        this.entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        this.dataVersion.bumpAfterCommit();
+        this.availabilityIndex.rebuild();
+
+        log.info("Catalog import finished: {} lines, {} books, {} stocks, {} errors",
+                result.getLines(), result.getBooks(), result.getStocks(), result.getErrorCount());
+        return result;
+    }
+
+    private void importChunk(List<CatalogLine> chunk, CatalogImportResult result) {
+        result.addLines(chunk.size());
+
+        // 1行ずつ検証（エラー行は登録しない）
+        List<CatalogLine> valid = new ArrayList<>(chunk.size());
+        for (CatalogLine line : chunk) {
+            String error = line.parse();
+            if (error != null) {
+                result.addError(line.lineNumber, error);
+            } else {
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // エラー・件数はコミットできた場合のみ結果に加える
+        List<CatalogLine> duplicates = new ArrayList<>();
+        List<CatalogLine> stocks = new ArrayList<>();
+        Map<String, String> titles = new LinkedHashMap<>();
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                // 書籍をISBNで登録・更新し、書籍IDをまとめて取得
+                for (CatalogLine line : valid) {
+                    titles.put(line.isbn, line.title);
+                }
+                upsertBooks(titles);
+                Map<String, Long> bookIds = findBookIds(titles.keySet());
+
+                // 既存の在庫管理番号とチャンク内の重複はエラーにする
+                Set<String> stockIds = new HashSet<>();
+                for (CatalogLine line : valid) {
+                    if (line.stockId != null) {
+                        stockIds.add(line.stockId);
+                    }
+                }
+                Set<String> existing = findExistingStockIds(stockIds);
+                Set<String> seen = new HashSet<>();
+                for (CatalogLine line : valid) {
+                    if (line.stockId == null) {
+                        continue;
+                    }
+                    if (existing.contains(line.stockId) || !seen.add(line.stockId)) {
+                        duplicates.add(line);
+                        continue;
+                    }
+                    stocks.add(line);
+                }
+                insertStocks(stocks, bookIds);
+            });
+
+            result.addBooks(titles.size());
+            result.addStocks(stocks.size());
+            for (CatalogLine line : duplicates) {
+                result.addError(line.lineNumber, "在庫管理番号が既に存在します: " + line.stockId);
+            }
+        } catch (DataAccessException e) {
+            log.error("Catalog import chunk failed (lines {}-{}): {}", chunk.get(0).lineNumber,
+                    chunk.get(chunk.size() - 1).lineNumber, e.getMessage());
+            for (CatalogLine line : valid) {
+                result.addError(line.lineNumber, "登録に失敗しました");
+            }
+        }
+
+        log.info("Catalog import progress: {} lines, {} books, {} stocks, {} errors",
+                result.getLines(), result.getBooks(), result.getStocks(), result.getErrorCount());
+    }
+
+    private void upsertBooks(Map<String, String> titles) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(titles.entrySet());
+        this.jdbcTemplate.batchUpdate(UPSERT_BOOK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int index) throws SQLException {
+                ps.setString(1, entries.get(index).getKey());
+                ps.setString(2, entries.get(index).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    private Map<String, Long> findBookIds(Collection<String> isbns) {
+        Map<String, Long> bookIds = new HashMap<>();
+        this.jdbcTemplate.query("SELECT id, isbn FROM book_mst WHERE isbn IN (" + placeholders(isbns.size()) + ")",
+                rs -> {
+                    bookIds.put(rs.getString("isbn"), rs.getLong("id"));
+                }, isbns.toArray());
+        return bookIds;
+    }
+
+    private Set<String> findExistingStockIds(Collection<String> stockIds) {
+        Set<String> existing = new HashSet<>();
+        if (stockIds.isEmpty()) {
+            return existing;
+        }
+        this.jdbcTemplate.query("SELECT id FROM stocks WHERE id IN (" + placeholders(stockIds.size()) + ")",
+                rs -> {
+                    existing.add(rs.getString("id"));
+                }, stockIds.toArray());
+        return existing;
+    }
+
+    private void insertStocks(List<CatalogLine> stocks, Map<String, Long> bookIds) {
+        if (stocks.isEmpty()) {
+            return;
+        }
+        this.jdbcTemplate.batchUpdate(INSERT_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int index) throws SQLException {
+                CatalogLine line = stocks.get(index);
+                ps.setString(1, line.stockId);
+                ps.setLong(2, bookIds.get(line.isbn));
+                ps.setInt(3, line.status);
+                ps.setInt(4, line.price);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return stocks.size();
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * CSVの1行（parseの後に各項目を参照する）
+     */
+    private static final class CatalogLine {
+        private final long lineNumber;
+        private final String text;
+        private String isbn;
+        private String title;
+        private String stockId;
+        private int price;
+        private int status;
+
+        private CatalogLine(long lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+
+        /**
+         * 項目を読み取る（エラーの場合はその内容を返す）
+         */
+        private String parse() {
+            List<String> columns = split(this.text);
+            if (columns.size() < 2 || columns.size() > 5) {
+                return "列数が正しくありません";
+            }
+
+            this.isbn = columns.get(0);
+            this.title = columns.get(1);
+            if (this.isbn.length() != 13) {
+                return "ISBNは13文字で入力してください";
+            }
+            if (this.title.isEmpty() || this.title.length() > 255) {
+                return "書籍タイトルは1～255文字で入力してください";
+            }
+
+            String stockColumn = columns.size() > 2 ? columns.get(2) : "";
+            if (stockColumn.isEmpty()) {
+                return null;
+            }
+            if (stockColumn.length() > 20) {
+                return "在庫管理番号は20文字以内で入力してください";
+            }
+            this.stockId = stockColumn;
+
+            try {
+                this.price = Integer.parseInt(columns.size() > 3 ? columns.get(3) : "");
+            } catch (NumberFormatException e) {
+                return "購入金額が正しくありません";
+            }
+            if (this.price < 0) {
+                return "購入金額が正しくありません";
+            }
+
+            String statusColumn = columns.size() > 4 ? columns.get(4) : "";
+            if (statusColumn.isEmpty()) {
+                this.status = Constants.STOCK_AVAILABLE;
+            } else if (statusColumn.equals(String.valueOf(Constants.STOCK_AVAILABLE))) {
+                this.status = Constants.STOCK_AVAILABLE;
+            } else if (statusColumn.equals(String.valueOf(Constants.STOCK_UNAVAILABLE))) {
+                this.status = Constants.STOCK_UNAVAILABLE;
+            } else {
+                return "在庫ステータスが正しくありません";
+            }
+            return null;
+        }
+
+        /**
+         * カンマ区切りで分割する（ダブルクォートで囲まれた項目内のカンマ・""に対応）
+         */
+        private static List<String> split(String text) {
+            List<String> columns = new ArrayList<>();
+            StringBuilder column = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        column.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        column.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    columns.add(column.toString().strip());
+                    column.setLength(0);
+                } else {
+                    column.append(c);
+                }
+            }
+            columns.add(column.toString().strip());
+            return columns;
+        }
+    }
+}
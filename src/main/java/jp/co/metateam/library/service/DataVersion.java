@@ -0,0 +1,41 @@
+package jp.co.metateam.library.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 書籍・在庫・貸出の更新回数（画面の断片キャッシュのキー、一覧画面のETagに使う）
+ * 貸出・在庫の更新は在庫索引への反映後に、書籍・在庫の更新はコミット後にも進める。
+ */
+@Component
+public class DataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long get() {
+        return this.version.get();
+    }
+
+    public void bump() {
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * コミット後に進める（トランザクション外の場合は即時）
+     */
+    public void bumpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump();
+            }
+        });
+    }
+}
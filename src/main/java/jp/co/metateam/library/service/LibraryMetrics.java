@@ -0,0 +1,66 @@
+package jp.co.metateam.library.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jp.co.metateam.library.constants.Constants;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.repository.StockRepository;
+import jp.co.metateam.library.values.RentalStatus;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 業務の監視項目（貸出待ち・貸出中・延滞中の件数、利用可能在庫数）
+ * 収集のたびにSQLを実行しないよう、一定間隔で集計した値を返す。
+ */
+@Log4j2
+@Component
+public class LibraryMetrics {
+
+    private final RentalManageRepository rentalManageRepository;
+    private final StockRepository stockRepository;
+
+    private final AtomicLong waitingRentals = new AtomicLong();
+    private final AtomicLong activeRentals = new AtomicLong();
+    private final AtomicLong overdueRentals = new AtomicLong();
+    private final AtomicLong availableStocks = new AtomicLong();
+
+    @Autowired
+    public LibraryMetrics(RentalManageRepository rentalManageRepository, StockRepository stockRepository,
+            MeterRegistry registry) {
+        this.rentalManageRepository = rentalManageRepository;
+        this.stockRepository = stockRepository;
+
+        Gauge.builder("library.rentals", this.waitingRentals, AtomicLong::get).tag("state", "waiting")
+                .description("貸出待ちの件数").register(registry);
+        Gauge.builder("library.rentals", this.activeRentals, AtomicLong::get).tag("state", "active")
+                .description("貸出中の件数（延滞中を含む）").register(registry);
+        Gauge.builder("library.rentals", this.overdueRentals, AtomicLong::get).tag("state", "overdue")
+                .description("返却予定日を過ぎた貸出中の件数").register(registry);
+        Gauge.builder("library.stocks.available", this.availableStocks, AtomicLong::get)
+                .description("利用可能在庫数").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.metrics.refresh-interval-ms:60000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        try {
+            LocalDate today = LocalDate.now(ZoneId.of("Asia/Tokyo"));
+            this.waitingRentals.set(this.rentalManageRepository.countByStatus(RentalStatus.RENT_WAIT.getValue()));
+            this.activeRentals.set(this.rentalManageRepository.countByStatus(RentalStatus.RENTAlING.getValue()));
+            this.overdueRentals.set(this.rentalManageRepository.countOverdue(AvailabilityService.toDate(today)));
+            this.availableStocks.set(this.stockRepository.countByDeletedAtIsNullAndStatus(Constants.STOCK_AVAILABLE));
+        } catch (RuntimeException e) {
+            // 集計に失敗した場合は前回の値のまま
+            log.warn("Failed to refresh library metrics", e);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package jp.co.metateam.library.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jp.co.metateam.library.constants.Constants;
+import jp.co.metateam.library.model.Account;
+import jp.co.metateam.library.model.RentalBatchResult;
+import jp.co.metateam.library.model.RentalBatchRow;
+import jp.co.metateam.library.model.RentalPeriod;
+import jp.co.metateam.library.model.Stock;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.repository.StockRepository;
+import jp.co.metateam.library.values.RentalStatus;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 貸出の一括登録
+ * 社員・在庫はIN句1回ずつで取得し、在庫は在庫管理番号順にロックした上で全行をまとめて検証する。
+ * 検証を通った行はJDBCのバッチで登録する（貸出管理番号がIDENTITYのため、Hibernateではバッチ登録にならない）。
+ */
+@Log4j2
+@Service
+public class RentalBatchService {
+
+    private static final String INSERT_SQL = "INSERT INTO rental_manage"
+            + " (stock_id, employee_id, status, expected_rental_on, expected_return_on, rentaled_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final AccountCache accountCache;
+    private final StockRepository stockRepository;
+    private final RentalManageRepository rentalManageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RentalBatchService(AccountCache accountCache, StockRepository stockRepository,
+            RentalManageRepository rentalManageRepository, JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher) {
+        this.accountCache = accountCache;
+        this.stockRepository = stockRepository;
+        this.rentalManageRepository = rentalManageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * CSV（社員番号,在庫管理番号,貸出予定日,返却予定日[,貸出ステータス]）を読み取る
+     * 先頭行が社員番号の見出しであれば読み飛ばす。読み取れない行はparseErrorに理由を設定する。
+     */
+    public List<RentalBatchRow> parseCsv(String csv) {
+        List<RentalBatchRow> rows = new ArrayList<>();
+        String[] lines = csv.split("\\r?\\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].strip();
+            if (line.isEmpty() || (i == 0 && line.toLowerCase().startsWith("employee_id"))) {
+                continue;
+            }
+
+            String[] columns = line.split(",", -1);
+            RentalBatchRow row = new RentalBatchRow();
+            rows.add(row);
+            if (columns.length < 4 || columns.length > 5) {
+                row.setParseError("列数が正しくありません");
+                continue;
+            }
+            row.setEmployeeId(columns[0].strip());
+            row.setStockId(columns[1].strip());
+            try {
+                row.setExpectedRentalOn(LocalDate.parse(columns[2].strip()));
+                row.setExpectedReturnOn(LocalDate.parse(columns[3].strip()));
+            } catch (DateTimeParseException e) {
+                row.setParseError("予定日はyyyy-MM-ddで入力してください");
+                continue;
+            }
+            if (columns.length == 5 && !columns[4].isBlank()) {
+                try {
+                    row.setStatus(Integer.valueOf(columns[4].strip()));
+                } catch (NumberFormatException e) {
+                    row.setParseError("貸出ステータスが正しくありません");
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Transactional
+    public List<RentalBatchResult> saveAll(List<RentalBatchRow> rows) {
+        // 在庫をIN句1回で取得（在庫管理番号順にロック）、社員はキャッシュから取得（キャッシュにない社員はIN句1回）
+        Set<String> employeeIds = rows.stream().map(RentalBatchRow::getEmployeeId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> stockIds = rows.stream().map(RentalBatchRow::getStockId).filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<String, Stock> stocks = stockIds.isEmpty() ? Map.of()
+                : this.stockRepository.findAllByIdInForUpdate(stockIds).stream()
+                        .collect(Collectors.toMap(Stock::getId, Function.identity()));
+        Map<String, Account> accounts = this.accountCache.findAllByEmployeeIds(employeeIds);
+
+        // 既存の貸出待ち・貸出中の期間（在庫ごと、エポック日の [貸出予定日, 返却予定日]）
+        Map<String, List<long[]>> periodsByStock = new HashMap<>();
+        if (!stocks.isEmpty()) {
+            for (RentalPeriod period : this.rentalManageRepository.findActivePeriodsByStockIdIn(stocks.keySet())) {
+                periodsByStock.computeIfAbsent(period.getStockId(), key -> new ArrayList<>())
+                        .add(new long[] {
+                                AvailabilityService.toLocalDate(period.getExpectedRentalOn()).toEpochDay(),
+                                AvailabilityService.toLocalDate(period.getExpectedReturnOn()).toEpochDay() });
+            }
+        }
+
+        // 全行を検証（受け付けた行は後続の行の重複確認にも含める）
+        LocalDate today = LocalDate.now(ZoneId.of("Asia/Tokyo"));
+        RentalBatchResult[] results = new RentalBatchResult[rows.size()];
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            RentalBatchRow row = rows.get(i);
+            String error = validate(row, accounts, stocks, periodsByStock, today);
+            if (error != null) {
+                results[i] = new RentalBatchResult(i + 1, false, null, error);
+                continue;
+            }
+            periodsByStock.computeIfAbsent(row.getStockId(), key -> new ArrayList<>())
+                    .add(new long[] { row.getExpectedRentalOn().toEpochDay(), row.getExpectedReturnOn().toEpochDay() });
+            accepted.add(i);
+        }
+
+        if (!accepted.isEmpty()) {
+            List<Long> rentalIds = insert(rows, accepted);
+            for (int j = 0; j < accepted.size(); j++) {
+                int i = accepted.get(j);
+                RentalBatchRow row = rows.get(i);
+                Long rentalId = rentalIds.get(j);
+                results[i] = new RentalBatchResult(i + 1, true, rentalId, null);
+                this.eventPublisher.publishEvent(new RentalChangedEvent(rentalId, null,
+                        new RentalPeriod(rentalId, row.getStockId(), stocks.get(row.getStockId()).getBookMst().getId(),
+                                java.sql.Date.valueOf(row.getExpectedRentalOn()),
+                                java.sql.Date.valueOf(row.getExpectedReturnOn()))));
+            }
+        }
+
+        log.info("Rental batch: {} rows, {} registered", rows.size(), accepted.size());
+        return List.of(results);
+    }
+
+    private String validate(RentalBatchRow row, Map<String, Account> accounts, Map<String, Stock> stocks,
+            Map<String, List<long[]>> periodsByStock, LocalDate today) {
+        if (row.getParseError() != null) {
+            return row.getParseError();
+        }
+        if (row.getEmployeeId() == null || row.getEmployeeId().isEmpty()) {
+            return "社員番号は必須です";
+        }
+        if (row.getStockId() == null || row.getStockId().isEmpty()) {
+            return "在庫管理番号は必須です";
+        }
+        if (row.getExpectedRentalOn() == null) {
+            return "貸出予定日は必須です";
+        }
+        if (row.getExpectedReturnOn() == null) {
+            return "返却予定日は必須です";
+        }
+        if (row.getStatus() == null) {
+            row.setStatus(RentalStatus.RENT_WAIT.getValue());
+        }
+        if (!RentalStatus.RENT_WAIT.getValue().equals(row.getStatus())
+                && !RentalStatus.RENTAlING.getValue().equals(row.getStatus())) {
+            return "貸出ステータスは「貸出待ち」または「貸出中」を指定してください";
+        }
+        if (!accounts.containsKey(row.getEmployeeId())) {
+            return "社員番号が存在しません";
+        }
+        Stock stock = stocks.get(row.getStockId());
+        if (stock == null) {
+            return "在庫管理番号が存在しません";
+        }
+        if (stock.getStatus() != Constants.STOCK_AVAILABLE || stock.getDeletedAt() != null) {
+            return "この本は利用できません";
+        }
+        if (row.getExpectedRentalOn().isBefore(today)) {
+            return "過去の日付を貸出予定日にすることができません";
+        }
+        if (row.getExpectedRentalOn().isAfter(row.getExpectedReturnOn())) {
+            return "貸出予定日は返却予定日よりも前に設定してください";
+        }
+
+        // 既存の貸出の返却予定日が貸出予定日より後、かつ貸出予定日が返却予定日より前の場合は重複
+        long from = row.getExpectedRentalOn().toEpochDay();
+        long to = row.getExpectedReturnOn().toEpochDay();
+        for (long[] period : periodsByStock.getOrDefault(row.getStockId(), List.of())) {
+            if (period[1] > from && period[0] < to) {
+                return "貸出期間が重複しています";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 受け付けた行をバッチで登録し、採番された貸出管理番号を登録順に返す
+     */
+    private List<Long> insert(List<RentalBatchRow> rows, List<Integer> accepted) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int index) throws SQLException {
+                        RentalBatchRow row = rows.get(accepted.get(index));
+                        ps.setString(1, row.getStockId());
+                        ps.setString(2, row.getEmployeeId());
+                        ps.setInt(3, row.getStatus());
+                        ps.setDate(4, java.sql.Date.valueOf(row.getExpectedRentalOn()));
+                        ps.setDate(5, java.sql.Date.valueOf(row.getExpectedReturnOn()));
+                        // 貸出中で登録する場合は貸出日時を設定する（画面からの登録と同じ）
+                        ps.setTimestamp(6, RentalStatus.RENTAlING.getValue().equals(row.getStatus()) ? now : null);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return accepted.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> rentalIds = new ArrayList<>(accepted.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            rentalIds.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return rentalIds;
+    }
+}
@@ -0,0 +1,23 @@
+package jp.co.metateam.library.service;
+
+import jp.co.metateam.library.model.RentalPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 貸出管理の登録・更新イベント
+ * 貸出待ち・貸出中以外の状態はnullで表す。
+ */
+@Getter
+@AllArgsConstructor
+public class RentalChangedEvent {
+
+    /** 貸出管理番号 */
+    private Long rentalId;
+
+    /** 変更前の貸出期間 */
+    private RentalPeriod before;
+
+    /** 変更後の貸出期間 */
+    private RentalPeriod after;
+}
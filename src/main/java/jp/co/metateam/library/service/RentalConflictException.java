@@ -0,0 +1,11 @@
+package jp.co.metateam.library.service;
+
+/**
+ * 貸出登録・更新時に、同じ在庫の貸出期間が重複していた場合（書籍名での登録では空いている在庫がなかった場合）の例外
+ */
+public class RentalConflictException extends Exception {
+
+    public RentalConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,131 @@
+package jp.co.metateam.library.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jp.co.metateam.library.model.RentalExportRow;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.values.RentalStatus;
+
+/**
+ * 貸出履歴のCSV出力
+ * 読み取り専用トランザクション内でDBから1行ずつ読み出し、そのまま出力へ書き込む（行数によらずメモリ使用量は一定）。
+ */
+@Service
+public class RentalExportService {
+
+    private static final String HEADER = "貸出管理番号,在庫管理番号,書籍名,社員番号,氏名,貸出ステータス,"
+            + "貸出予定日,返却予定日,貸出日時,返却日時,キャンセル日時";
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final RentalManageRepository rentalManageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public RentalExportService(RentalManageRepository rentalManageRepository,
+            PlatformTransactionManager transactionManager) {
+        this.rentalManageRepository = rentalManageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 貸出履歴をCSV（UTF-8、BOM付き）で書き込む
+     *
+     * @param from   貸出予定日の下限（nullは指定なし）
+     * @param to     貸出予定日の上限（nullは指定なし）
+     * @param status 貸出ステータス（nullは指定なし）
+     */
+    public void writeCsv(OutputStream out, LocalDate from, LocalDate to, Integer status) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+        writer.write(HEADER);
+        writer.write("\r\n");
+
+        try {
+            this.transactionTemplate.executeWithoutResult(tx -> {
+                Date fromDate = from != null ? AvailabilityService.toDate(from) : null;
+                Date toDate = to != null ? AvailabilityService.toDate(to) : null;
+                try (Stream<RentalExportRow> rows = this.rentalManageRepository.streamForExport(fromDate, toDate,
+                        status)) {
+                    rows.forEach(row -> writeRow(writer, row));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeRow(Writer writer, RentalExportRow row) {
+        try {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(escape(row.getStockId()));
+            writer.write(',');
+            writer.write(escape(row.getTitle()));
+            writer.write(',');
+            writer.write(escape(row.getEmployeeId()));
+            writer.write(',');
+            writer.write(escape(row.getName()));
+            writer.write(',');
+            writer.write(statusText(row.getStatus()));
+            writer.write(',');
+            writer.write(formatDate(row.getExpectedRentalOn()));
+            writer.write(',');
+            writer.write(formatDate(row.getExpectedReturnOn()));
+            writer.write(',');
+            writer.write(formatDateTime(row.getRentaledAt()));
+            writer.write(',');
+            writer.write(formatDateTime(row.getReturnedAt()));
+            writer.write(',');
+            writer.write(formatDateTime(row.getCanceledAt()));
+            writer.write("\r\n");
+        } catch (IOException e) {
+            // クライアントが切断した場合など。読み出しを中断する
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String statusText(Integer status) {
+        for (RentalStatus rentalStatus : RentalStatus.values()) {
+            if (rentalStatus.getValue().equals(status)) {
+                return rentalStatus.getText();
+            }
+        }
+        return String.valueOf(status);
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? AvailabilityService.toLocalDate(date).toString() : "";
+    }
+
+    private static String formatDateTime(java.sql.Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().format(DATE_TIME_FORMAT) : "";
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,15 +1,24 @@
 package jp.co.metateam.library.service;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
 import jp.co.metateam.library.model.Account;
+import jp.co.metateam.library.model.KeysetPage;
 
 import jp.co.metateam.library.model.RentalManage;
 import jp.co.metateam.library.model.RentalManageDto;
+import jp.co.metateam.library.model.RentalPeriod;
 import jp.co.metateam.library.model.Stock;
 
 import jp.co.metateam.library.repository.AccountRepository;
@@ -18,46 +27,115 @@ import jp.co.metateam.library.repository.StockRepository;
 import jp.co.metateam.library.values.RentalStatus;
 
 @Service
+@Timed(value = "library.service", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 public class RentalManageService {
 
     private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
     private final RentalManageRepository rentalManageRepository;
     private final StockRepository stockRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int pageSize;
 
     @Autowired
     public RentalManageService(
             AccountRepository accountRepository,
+            AccountCache accountCache,
             RentalManageRepository rentalManageRepository,
-            StockRepository stockRepository) {
+            StockRepository stockRepository,
+            AvailabilityIndex availabilityIndex,
+            WaitlistService waitlistService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${library.page-size:20}") int pageSize) {
         this.accountRepository = accountRepository;
+        this.accountCache = accountCache;
         this.rentalManageRepository = rentalManageRepository;
         this.stockRepository = stockRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.pageSize = pageSize;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<RentalManage> findAll() {
         List<RentalManage> rentalManageList = this.rentalManageRepository.findAll();
 
         return rentalManageList;
     }
 
+    /**
+     * 貸出一覧の1ページ分（貸出予定日・貸出管理番号順）
+     *
+     * @param after  次ページ取得時のカーソル（貸出予定日_貸出管理番号）
+     * @param before 前ページ取得時のカーソル（貸出予定日_貸出管理番号）
+     * @param order  並び順（asc / desc）
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<RentalManage> findPage(String after, String before, String order) {
+        String normalizedOrder = KeysetPage.normalizeOrder(order);
+        boolean backward = before != null;
+        String cursor = backward ? before : after;
+
+        // カーソルを貸出予定日と貸出管理番号に分解（不正な場合は先頭ページとして扱う）
+        Date cursorRentalOn = null;
+        Long cursorId = null;
+        if (cursor != null) {
+            int separator = cursor.indexOf('_');
+            try {
+                if (separator > 0) {
+                    cursorRentalOn = AvailabilityService.toDate(LocalDate.parse(cursor.substring(0, separator)));
+                    cursorId = Long.valueOf(cursor.substring(separator + 1));
+                }
+            } catch (DateTimeParseException | NumberFormatException e) {
+                cursorRentalOn = null;
+                cursorId = null;
+            }
+        }
+        boolean ascending = "asc".equals(normalizedOrder) != backward;
+
+        PageRequest limit = PageRequest.of(0, this.pageSize + 1);
+        List<RentalManage> fetched = ascending
+                ? this.rentalManageRepository.findPageAscending(cursorRentalOn, cursorId, limit)
+                : this.rentalManageRepository.findPageDescending(cursorRentalOn, cursorId, limit);
+
+        // 貸出予定日は必須（V4__rental_manage_dates_not_null）のため、どの行からもカーソルを作れる
+        return KeysetPage.of(fetched, this.pageSize, backward, cursorId != null, normalizedOrder,
+                rentalManage -> AvailabilityService.toLocalDate(rentalManage.getExpectedRentalOn()) + "_"
+                        + rentalManage.getId());
+    }
+
     @Transactional
     public RentalManage findById(Long id) {
         return this.rentalManageRepository.findById(id).orElse(null);
     }
 
+    /**
+     * 貸出登録
+     * 在庫管理番号が未指定で書籍ID（bookId）を指定した場合は、書籍の利用可能在庫をすべてロックした上で、
+     * 期間に空いている在庫のうち前後の貸出との隙間が最も小さい在庫を割り当てる（StockAllocator）。
+     * 割り当てた在庫管理番号は rentalManageDto に設定する。
+     */
     @Transactional
     public void save(RentalManageDto rentalManageDto) throws Exception {
         try {
-            Account account = this.accountRepository.findByEmployeeId(rentalManageDto.getEmployeeId()).orElse(null);
+            // 在庫のロックはトランザクションの最初に取得する（ロック取得後に読み取りの基準時点を決めるため）
+            Stock stock = isBookByTitle(rentalManageDto)
+                    ? allocateStockLocked(rentalManageDto)
+                    : this.stockRepository.findByIdForUpdate(rentalManageDto.getStockId()).orElse(null);
+            if (stock == null) {
+                throw new Exception("Stock not found.");
+            }
+
+            Account account = findAccount(rentalManageDto.getEmployeeId());
             if (account == null) {
                 throw new Exception("Account not found.");
             }
 
-            Stock stock = this.stockRepository.findById(rentalManageDto.getStockId()).orElse(null);
-            if (stock == null) {
-                throw new Exception("Stock not found.");
-            }
+            // ロック取得後に重複を再確認する
+            checkOverlapLocked(rentalManageDto, null);
 
             RentalManage rentalManage = new RentalManage();
             rentalManage = setRentalStatusDate(rentalManage, rentalManageDto.getStatus());
@@ -70,6 +148,9 @@ public class RentalManageService {
 
             // データベースへの保存
             this.rentalManageRepository.save(rentalManage);
+
+            this.eventPublisher.publishEvent(
+                    new RentalChangedEvent(rentalManage.getId(), null, toActivePeriod(rentalManage)));
         } catch (Exception e) {
             throw e;
         }
@@ -82,20 +163,26 @@ public class RentalManageService {
 
         try {
 
-            Account account = this.accountRepository.findByEmployeeId(rentalManageDto.getEmployeeId()).orElse(null);
-            if (account == null) {
+            // 在庫のロックはトランザクションの最初に取得する（ロック取得後に読み取りの基準時点を決めるため）
+            Stock stock = this.stockRepository.findByIdForUpdate(rentalManageDto.getStockId()).orElse(null);
+            if (stock == null) {
                 throw new Exception("Rental record not found.");
             }
-            Stock stock = this.stockRepository.findById(rentalManageDto.getStockId()).orElse(null);
-            if (stock == null) {
+            Account account = findAccount(rentalManageDto.getEmployeeId());
+            if (account == null) {
                 throw new Exception("Rental record not found.");
             }
 
+            // ロック取得後に重複を再確認する
+            checkOverlapLocked(rentalManageDto, id);
+
             RentalManage rentalManage = this.rentalManageRepository.findById(id).orElse(null);
             if (rentalManage == null) {
                 throw new Exception("RentalManage record not found.");
             }
 
+            RentalPeriod before = toActivePeriod(rentalManage);
+
             setRentalStatusDate(rentalManage, rentalManageDto.getStatus());
 
             rentalManage.setId(rentalManageDto.getId());
@@ -107,12 +194,66 @@ public class RentalManageService {
 
             // データベースへの保存
             this.rentalManageRepository.save(rentalManage);
+
+            this.eventPublisher.publishEvent(
+                    new RentalChangedEvent(rentalManage.getId(), before, toActivePeriod(rentalManage)));
+
+            // 返却・キャンセルで在庫が空いた場合は、順番待ちの先頭を貸出待ちにする（在庫のロック中に行う）
+            // 同じ編集で在庫を変更した場合に空くのは変更前の在庫
+            if (before != null && (RentalStatus.RETURNED.getValue().equals(rentalManage.getStatus())
+                    || RentalStatus.CANCELED.getValue().equals(rentalManage.getStatus()))) {
+                Stock freedStock = before.getStockId().equals(stock.getId())
+                        ? stock
+                        : this.stockRepository.findByIdForUpdate(before.getStockId()).orElse(null);
+                if (freedStock != null) {
+                    this.waitlistService.promoteNext(freedStock);
+                }
+            }
         } catch (Exception e) {
             throw e;
         }
 
     }
 
+    // 在庫管理番号を指定せず、書籍名（書籍ID）で登録するか
+    private static boolean isBookByTitle(RentalManageDto rentalManageDto) {
+        return (rentalManageDto.getStockId() == null || rentalManageDto.getStockId().isEmpty())
+                && rentalManageDto.getBookId() != null;
+    }
+
+    /**
+     * 書籍の利用可能在庫をロックし、期間に空いている在庫を割り当てる
+     * 同じ書籍への書籍名での登録は在庫のロックで直列化され、在庫管理番号を指定した登録とも同じ行のロックで排他する。
+     */
+    private Stock allocateStockLocked(RentalManageDto rentalManageDto) throws RentalConflictException {
+        List<Stock> stocks = this.stockRepository.findAvailableByBookIdForUpdate(rentalManageDto.getBookId());
+        if (stocks.isEmpty() || rentalManageDto.getExpectedRentalOn() == null
+                || rentalManageDto.getExpectedReturnOn() == null) {
+            throw new RentalConflictException("貸出期間に空いている在庫がありません");
+        }
+        List<String> stockIds = stocks.stream().map(Stock::getId).toList();
+        // 索引はコミット後に反映されるため使わず、ロック取得後にSQLで読み込む
+        List<RentalPeriod> periods = this.rentalManageRepository.findActivePeriodsByStockIdIn(stockIds);
+        String stockId = StockAllocator.bestFit(stockIds, periods,
+                AvailabilityService.toLocalDate(rentalManageDto.getExpectedRentalOn()),
+                AvailabilityService.toLocalDate(rentalManageDto.getExpectedReturnOn()), null);
+        if (stockId == null) {
+            throw new RentalConflictException("貸出期間に空いている在庫がありません");
+        }
+        rentalManageDto.setStockId(stockId);
+        return stocks.get(stockIds.indexOf(stockId));
+    }
+
+    /**
+     * 社員の存在をキャッシュで確認し、貸出に関連付ける参照を返す（SQLは実行しない）
+     */
+    private Account findAccount(String employeeId) {
+        if (this.accountCache.findByEmployeeId(employeeId) == null) {
+            return null;
+        }
+        return this.accountRepository.getReferenceById(employeeId);
+    }
+
     private RentalManage setRentalStatusDate(RentalManage rentalManage, Integer status) {
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
 
@@ -127,18 +268,47 @@ public class RentalManageService {
         return rentalManage;
     }
 
-    /// ここから追加(5/16)
-    @Transactional
-    public List<RentalManage> findByStockIdAndStatusIn(String Id, Long rentalId) {
-        List<RentalManage> rentalAvailable = this.rentalManageRepository.findByStockIdAndStatusIn(Id, rentalId);
-        return rentalAvailable;
+    // 貸出待ち・貸出中の場合のみ貸出期間を返す
+    private RentalPeriod toActivePeriod(RentalManage rentalManage) {
+        Integer status = rentalManage.getStatus();
+        if ((!RentalStatus.RENT_WAIT.getValue().equals(status) && !RentalStatus.RENTAlING.getValue().equals(status))
+                || rentalManage.getExpectedRentalOn() == null || rentalManage.getExpectedReturnOn() == null) {
+            return null;
+        }
+        Stock stock = rentalManage.getStock();
+        return new RentalPeriod(rentalManage.getId(), stock.getId(), stock.getBookMst().getId(),
+                rentalManage.getExpectedRentalOn(), rentalManage.getExpectedReturnOn());
     }
 
+    /**
+     * 在庫のロック取得後の重複確認（索引はコミット後に反映されるため使わず、SQLで判定する）
+     */
+    private void checkOverlapLocked(RentalManageDto rentalManageDto, Long excludedRentalId)
+            throws RentalConflictException {
+        if (rentalManageDto.getExpectedRentalOn() == null || rentalManageDto.getExpectedReturnOn() == null) {
+            return;
+        }
+        Long overlaps = this.rentalManageRepository.existsOverlap(rentalManageDto.getStockId(),
+                excludedRentalId != null ? excludedRentalId : 0L,
+                rentalManageDto.getExpectedRentalOn(), rentalManageDto.getExpectedReturnOn());
+        if (overlaps != 0) {
+            throw new RentalConflictException("貸出期間が重複しています");
+        }
+    }
+
+    /**
+     * 指定在庫に期間 [from, to) と重なる貸出待ち・貸出中の貸出があるか
+     * 索引が構築済みであればメモリ上で判定し、未構築の場合はSQL1回で判定する。
+     */
     @Transactional
-    public List<RentalManage> findByStockIdAndStatusIn(String Id) {
-        List<RentalManage> rentalAvailable = this.rentalManageRepository.findByStockIdAndStatusIn(Id);
-        return rentalAvailable;
+    public boolean hasOverlap(String stockId, Date from, Date to, Long excludedRentalId) {
+        Boolean overlaps = this.availabilityIndex.overlaps(stockId, AvailabilityService.toLocalDate(from),
+                AvailabilityService.toLocalDate(to), excludedRentalId);
+        if (overlaps != null) {
+            return overlaps;
+        }
+        return this.rentalManageRepository.existsOverlap(stockId,
+                excludedRentalId != null ? excludedRentalId : 0L, from, to) != 0;
     }
-    /// ここまで
 
 }
@@ -0,0 +1,110 @@
+package jp.co.metateam.library.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jp.co.metateam.library.model.RentalPeriod;
+
+/**
+ * 書籍名での貸出登録・在庫カレンダーからの遷移時に、期間 [from, to) に割り当てる在庫を選ぶ（ベストフィット）
+ * 期間の前後の貸出との隙間が最も小さい在庫を選び、長い空きを後の長期の貸出のために残す。
+ *
+ * 優先順位：
+ * 1. 前後の両方に貸出がある在庫（空きの途中を埋める）、片側のみ、貸出のない在庫の順
+ * 2. 前の貸出の返却予定日から貸出予定日まで・返却予定日から次の貸出の貸出予定日までの日数の合計が小さい順
+ * 3. 在庫管理番号順
+ * 重複の条件は RentalManageRepository.existsOverlap と同じ。生成しないユーティリティ。
+ */
+final class StockAllocator {
+
+    private StockAllocator() {
+    }
+
+    /**
+     * 割り当てる在庫の在庫管理番号（空いている在庫がない場合はnull）
+     *
+     * @param stockIds         候補の在庫管理番号（在庫管理番号順）
+     * @param periods          候補の在庫の貸出待ち・貸出中の貸出期間
+     * @param excludedRentalId 重複とみなさない貸出管理番号（なければnull）
+     */
+    static String bestFit(List<String> stockIds, List<RentalPeriod> periods, LocalDate from, LocalDate to,
+            Long excludedRentalId) {
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+
+        Map<String, Fit> fits = new HashMap<>();
+        for (String stockId : stockIds) {
+            fits.put(stockId, new Fit());
+        }
+        for (RentalPeriod period : periods) {
+            Fit fit = fits.get(period.getStockId());
+            if (fit == null || period.getRentalId().equals(excludedRentalId)) {
+                continue;
+            }
+            long periodStart = AvailabilityService.toLocalDate(period.getExpectedRentalOn()).toEpochDay();
+            long periodEnd = AvailabilityService.toLocalDate(period.getExpectedReturnOn()).toEpochDay();
+            if (periodStart < end && periodEnd > start) {
+                fit.overlaps = true;
+            } else if (periodEnd <= start) {
+                fit.previousEnd = Math.max(fit.previousEnd, periodEnd);
+            } else {
+                fit.nextStart = Math.min(fit.nextStart, periodStart);
+            }
+        }
+
+        String best = null;
+        Fit bestFit = null;
+        for (String stockId : stockIds) {
+            Fit fit = fits.get(stockId);
+            if (fit.overlaps) {
+                continue;
+            }
+            fit.score(start, end);
+            // 同じ評価の場合は先の候補（在庫管理番号順）を残す
+            if (bestFit == null || fit.isBetterThan(bestFit)) {
+                best = stockId;
+                bestFit = fit;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 在庫1冊分の前後の貸出との隙間
+     */
+    private static class Fit {
+        private boolean overlaps;
+        private long previousEnd = Long.MIN_VALUE;
+        private long nextStart = Long.MAX_VALUE;
+
+        /** 貸出のない側の数（0〜2） */
+        private int openSides;
+
+        /** 貸出のある側の隙間の日数の合計 */
+        private long gap;
+
+        private void score(long start, long end) {
+            this.openSides = 0;
+            this.gap = 0;
+            if (this.previousEnd == Long.MIN_VALUE) {
+                this.openSides++;
+            } else {
+                this.gap += start - this.previousEnd;
+            }
+            if (this.nextStart == Long.MAX_VALUE) {
+                this.openSides++;
+            } else {
+                this.gap += this.nextStart - end;
+            }
+        }
+
+        private boolean isBetterThan(Fit other) {
+            if (this.openSides != other.openSides) {
+                return this.openSides < other.openSides;
+            }
+            return this.gap < other.gap;
+        }
+    }
+}
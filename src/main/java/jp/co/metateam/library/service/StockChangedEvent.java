@@ -0,0 +1,24 @@
+package jp.co.metateam.library.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 在庫の登録・更新イベント
+ */
+@Getter
+@AllArgsConstructor
+public class StockChangedEvent {
+
+    /** 在庫管理番号 */
+    private String stockId;
+
+    /** 書籍ID */
+    private Long bookId;
+
+    /** 変更前に利用可能だったか */
+    private boolean availableBefore;
+
+    /** 変更後に利用可能か */
+    private boolean availableAfter;
+}
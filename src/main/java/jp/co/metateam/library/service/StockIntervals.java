@@ -0,0 +1,120 @@
+package jp.co.metateam.library.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 在庫1冊分の貸出期間（貸出待ち・貸出中）の索引
+ * 貸出予定日の昇順に並べ、返却予定日の累積最大値（最大値と、それを除いた2番目の値）を持つことで、
+ * 特定の貸出を除いた重複判定を二分探索1回で行う。生成後は変更しない。
+ */
+final class StockIntervals {
+
+    static final StockIntervals EMPTY = new StockIntervals(List.of());
+
+    /** 貸出予定日順の貸出管理番号・貸出予定日・返却予定日（日付はエポック日） */
+    private final long[] rentalIds;
+    private final long[] starts;
+    private final long[] ends;
+
+    /** 先頭からi番目までの返却予定日の最大値と、その貸出管理番号 */
+    private final long[] maxEnds;
+    private final long[] maxEndIds;
+
+    /** 先頭からi番目までで、maxEndIdsの貸出を除いた返却予定日の最大値 */
+    private final long[] secondEnds;
+
+    private StockIntervals(List<long[]> entries) {
+        List<long[]> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(entry -> entry[1]));
+
+        int size = sorted.size();
+        this.rentalIds = new long[size];
+        this.starts = new long[size];
+        this.ends = new long[size];
+        this.maxEnds = new long[size];
+        this.maxEndIds = new long[size];
+        this.secondEnds = new long[size];
+
+        long maxEnd = Long.MIN_VALUE;
+        long maxEndId = 0;
+        long secondEnd = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            long[] entry = sorted.get(i);
+            this.rentalIds[i] = entry[0];
+            this.starts[i] = entry[1];
+            this.ends[i] = entry[2];
+
+            if (entry[2] > maxEnd) {
+                secondEnd = maxEnd;
+                maxEnd = entry[2];
+                maxEndId = entry[0];
+            } else if (entry[2] > secondEnd) {
+                secondEnd = entry[2];
+            }
+            this.maxEnds[i] = maxEnd;
+            this.maxEndIds[i] = maxEndId;
+            this.secondEnds[i] = secondEnd;
+        }
+    }
+
+    /**
+     * 期間 [from, to) と重なる貸出があるか
+     * 既存の貸出の返却予定日がfromより後、かつ貸出予定日がtoより前の場合に重複とする。
+     */
+    boolean overlaps(long from, long to, Long excludedRentalId) {
+        // 貸出予定日がtoより前の貸出の件数
+        int count = lowerBound(to);
+        if (count == 0) {
+            return false;
+        }
+        int last = count - 1;
+        long end = excludedRentalId != null && this.maxEndIds[last] == excludedRentalId
+                ? this.secondEnds[last]
+                : this.maxEnds[last];
+        return end > from;
+    }
+
+    StockIntervals with(long rentalId, long start, long end) {
+        List<long[]> entries = entries(rentalId);
+        entries.add(new long[] { rentalId, start, end });
+        return new StockIntervals(entries);
+    }
+
+    StockIntervals without(long rentalId) {
+        List<long[]> entries = entries(rentalId);
+        return entries.isEmpty() ? EMPTY : new StockIntervals(entries);
+    }
+
+    static StockIntervals of(List<long[]> entries) {
+        return entries.isEmpty() ? EMPTY : new StockIntervals(entries);
+    }
+
+    /**
+     * 指定の貸出を除いた要素（貸出管理番号・貸出予定日・返却予定日）
+     */
+    private List<long[]> entries(long excludedRentalId) {
+        List<long[]> entries = new ArrayList<>(this.rentalIds.length + 1);
+        for (int i = 0; i < this.rentalIds.length; i++) {
+            if (this.rentalIds[i] != excludedRentalId) {
+                entries.add(new long[] { this.rentalIds[i], this.starts[i], this.ends[i] });
+            }
+        }
+        return entries;
+    }
+
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = this.starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.starts[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,53 +1,107 @@
 package jp.co.metateam.library.service;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
 import jp.co.metateam.library.constants.Constants;
+import jp.co.metateam.library.model.BookAvailability;
 import jp.co.metateam.library.model.BookMst;
+import jp.co.metateam.library.model.KeysetPage;
+import jp.co.metateam.library.model.RentalPeriod;
 import jp.co.metateam.library.model.Stock;
 import jp.co.metateam.library.model.StockDto;
+import jp.co.metateam.library.model.StockSummary;
 import jp.co.metateam.library.repository.BookMstRepository;
+import jp.co.metateam.library.repository.RentalManageRepository;
 import jp.co.metateam.library.repository.StockRepository;
 
 import org.springframework.ui.Model;
 
-import java.util.Date;
-import jp.co.metateam.library.repository.RentalManageRepository;
-import java.util.Map;
 import java.time.YearMonth;
 
 @Service
+@Timed(value = "library.service", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 public class StockService {
     private final BookMstRepository bookMstRepository;
     private final StockRepository stockRepository;
     private final RentalManageRepository rentalManageRepository;
+    private final AvailabilityService availabilityService;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersion dataVersion;
+    private final int pageSize;
+    private final int maxFreeStocks;
 
     @Autowired
     public StockService(BookMstRepository bookMstRepository, StockRepository stockRepository,
-            RentalManageRepository rentalManageRepository) {
+            RentalManageRepository rentalManageRepository,
+            AvailabilityService availabilityService, WaitlistService waitlistService,
+            ApplicationEventPublisher eventPublisher, DataVersion dataVersion,
+            @Value("${library.page-size:20}") int pageSize,
+            @Value("${library.stock-picker.max-results:100}") int maxFreeStocks) {
         this.bookMstRepository = bookMstRepository;
         this.stockRepository = stockRepository;
         this.rentalManageRepository = rentalManageRepository;
+        this.availabilityService = availabilityService;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.dataVersion = dataVersion;
+        this.pageSize = pageSize;
+        this.maxFreeStocks = maxFreeStocks;
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Stock> findAll() {
         List<Stock> stocks = this.stockRepository.findByDeletedAtIsNull();
 
         return stocks;
     }
 
-    @Transactional
+    /**
+     * 在庫一覧の1ページ分（在庫管理番号順）
+     *
+     * @param after  次ページ取得時のカーソル（在庫管理番号）
+     * @param before 前ページ取得時のカーソル（在庫管理番号）
+     * @param order  並び順（asc / desc）
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Stock> findPage(String after, String before, String order) {
+        String normalizedOrder = KeysetPage.normalizeOrder(order);
+        boolean backward = before != null;
+        String cursor = backward ? before : after;
+        if (cursor != null && cursor.isEmpty()) {
+            cursor = null;
+        }
+        boolean ascending = "asc".equals(normalizedOrder) != backward;
+
+        PageRequest limit = PageRequest.of(0, this.pageSize + 1);
+        List<Stock> fetched = ascending
+                ? this.stockRepository.findPageAscending(cursor, limit)
+                : this.stockRepository.findPageDescending(cursor, limit);
+
+        KeysetPage<Stock> page = KeysetPage.of(fetched, this.pageSize, backward, cursor != null, normalizedOrder,
+                Stock::getId);
+
+        // 一覧に表示する貸出情報を1回のSQLで読み込む（取得済みの在庫に反映される）
+        if (!page.getContent().isEmpty()) {
+            this.stockRepository.findWithRentalsByIdIn(page.getContent().stream().map(Stock::getId).toList());
+        }
+
+        return page;
+    }
+
+    @Transactional(readOnly = true)
     public List<Stock> findStockAvailableAll() {
         List<Stock> stocks = this.stockRepository.findByDeletedAtIsNullAndStatus(Constants.STOCK_AVAILABLE);
 
@@ -59,6 +113,52 @@ public class StockService {
         return this.stockRepository.findById(id).orElse(null);
     }
 
+    /**
+     * 在庫詳細用（書籍と貸出履歴を含む）
+     */
+    @Transactional(readOnly = true)
+    public Stock findDetailById(String id) {
+        return this.stockRepository.findWithRentalsById(id).orElse(null);
+    }
+
+    /**
+     * 指定日に貸出予定のない利用可能在庫のうち、前後の貸出との隙間が最も小さい在庫の在庫管理番号（該当なしはnull）
+     * 在庫の選び方は書籍名での貸出登録（RentalManageService.save）と同じ。
+     */
+    @Transactional(readOnly = true)
+    public String findFreeStockId(Long bookId, LocalDate date) {
+        List<String> stockIds = this.stockRepository.findFreeStockIds(bookId, AvailabilityService.toDate(date));
+        if (stockIds.size() <= 1) {
+            return stockIds.isEmpty() ? null : stockIds.get(0);
+        }
+        List<RentalPeriod> periods = this.rentalManageRepository.findActivePeriodsByStockIdIn(stockIds);
+
+        return StockAllocator.bestFit(stockIds, periods, date, date.plusDays(1), null);
+    }
+
+    /**
+     * 期間 [from, to) のすべての日に空いている利用可能在庫（貸出登録・編集画面の在庫の選択肢）
+     * 書籍IDか書籍名（前方一致）のどちらかを指定する。重複の判定は貸出登録時の確認と同じ。
+     *
+     * @param excludedRentalId 編集中の貸出管理番号（自身との重複は除く、新規はnull）
+     */
+    @Transactional(readOnly = true)
+    public List<StockSummary> findFreeStocks(Long bookId, String title, LocalDate from, LocalDate to,
+            Long excludedRentalId) {
+        boolean hasTitle = title != null && !title.isBlank();
+        if ((bookId == null && !hasTitle) || from == null || to == null || to.isBefore(from)) {
+            return List.of();
+        }
+        String titlePattern = hasTitle ? escapeLike(title.strip()) + "%" : null;
+        return this.stockRepository.findFreeStocksBetween(bookId, titlePattern, AvailabilityService.toDate(from),
+                AvailabilityService.toDate(to), excludedRentalId != null ? excludedRentalId : 0L,
+                PageRequest.of(0, this.maxFreeStocks));
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     @Transactional
     public void save(StockDto stockDto) throws Exception {
         try {
@@ -75,6 +175,15 @@ public class StockService {
 
             // データベースへの保存
             this.stockRepository.save(stock);
+
+            this.eventPublisher.publishEvent(
+                    new StockChangedEvent(stock.getId(), bookMst.getId(), false, isAvailable(stock)));
+            // 利用可の在庫を追加した場合は、順番待ちの先頭を貸出待ちにする（追加した行はこのトランザクションがロックしている）
+            if (isAvailable(stock)) {
+                this.waitlistService.promoteNext(stock);
+            }
+            // 貸出可否が変わらない更新（価格など）でも一覧の表示は変わるため、コミット後に更新回数を進める
+            this.dataVersion.bumpAfterCommit();
         } catch (Exception e) {
             throw e;
         }
@@ -83,7 +192,8 @@ public class StockService {
     @Transactional
     public void update(String id, StockDto stockDto) throws Exception {
         try {
-            Stock stock = findById(id);
+            // 在庫の行をロックする（貸出登録・順番待ちの繰り上げと直列化する）
+            Stock stock = this.stockRepository.findByIdForUpdate(id).orElse(null);
             if (stock == null) {
                 throw new Exception("Stock record not found.");
             }
@@ -92,6 +202,7 @@ public class StockService {
             if (bookMst == null) {
                 throw new Exception("BookMst record not found.");
             }
+            boolean availableBefore = isAvailable(stock);
 
             stock.setId(stockDto.getId());
             stock.setBookMst(bookMst);
@@ -100,11 +211,23 @@ public class StockService {
 
             // データベースへの保存
             this.stockRepository.save(stock);
+
+            this.eventPublisher.publishEvent(
+                    new StockChangedEvent(stock.getId(), bookMst.getId(), availableBefore, isAvailable(stock)));
+            // 利用不可から利用可に戻した場合は、順番待ちの先頭を貸出待ちにする
+            if (!availableBefore && isAvailable(stock)) {
+                this.waitlistService.promoteNext(stock);
+            }
+            this.dataVersion.bumpAfterCommit();
         } catch (Exception e) {
             throw e;
         }
     }
 
+    private boolean isAvailable(Stock stock) {
+        return stock.getStatus() == Constants.STOCK_AVAILABLE && stock.getDeletedAt() == null;
+    }
+
     public List<Object> generateDaysOfWeek(int year, int month, int daysInMonth) {
         List<Object> daysOfWeek = new ArrayList<>();
         for (int dayOfMonth = 1; dayOfMonth <= daysInMonth; dayOfMonth++) {
@@ -122,54 +245,25 @@ public class StockService {
     int currentMonth = currentYearMonth.getMonthValue();
 
     public List<Object[]> generateBookData(Model model, int year, int month) {
-        List<Stock> stocks = findAll(); // 在庫情報を取得
-
-        // 書籍名ごとの在庫数を保持するMapを作成
-        Map<String, Long> bookCountMap = new HashMap<>();
-        for (Stock stock : stocks) {
-            String bookName = stock.getBookMst().getTitle();
-            // 在庫ステータスが０の場合のみカウント
-            if (stock.getStatus() == 0) {
-                bookCountMap.put(bookName, bookCountMap.getOrDefault(bookName, 0L) + 1);
-            }
-        }
+        // 在庫と月内の貸出期間を一括取得し、書籍ごとの日別在庫状況を算出
+        List<BookAvailability> availabilities = this.availabilityService.calculateMonth(year, month);
+        int daysInMonth = getDaysInMonth(year, month);
 
-        // 書籍名と在庫数を組み合わせた2次元配列を作成する
-        List<Object[]> bookData = new ArrayList<>();
-        for (Map.Entry<String, Long> entry : bookCountMap.entrySet()) {
-            String bookName = entry.getKey();
-            Long stockCount = entry.getValue();
-            Object[] row = { bookName, stockCount };
-            bookData.add(row);
-        }
-
-        // 各書籍ごとに各日の在庫数を計算して配列に追加
+        // 各書籍ごとに各日の在庫数を配列に追加
         List<Object[]> updatedBookData = new ArrayList<>();
-        for (Object[] row : bookData) {
-            String title = (String) row[0];
-            Long stockCount = (Long) row[1];
-
+        for (BookAvailability availability : availabilities) {
             // 各日の在庫状況を格納する配列を作成
-            Object[] stockInfo = new Object[getDaysInMonth(year, month) + 2];
-
-            stockInfo[0] = title; // 書籍名を配列の最初の要素に格納
-            stockInfo[1] = stockCount; // 在庫数を配列の2番目の要素に格納
+            Object[] stockInfo = new Object[daysInMonth + 2];
 
-            // 各日の在庫状況を計算して配列に格納
-            for (int dayOfMonth = 1; dayOfMonth <= getDaysInMonth(year, month); dayOfMonth++) {
-                LocalDate currentDate = LocalDate.of(year, month, dayOfMonth);
-                Date specifiedDate = Date.from(currentDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
-                Long rentalCount = this.rentalManageRepository.countBySpecifiedDateRentals(title, specifiedDate);
-                Long countAvailableRental = stockCount - rentalCount;
-                List<String> stockIdAvailableRental = this.stockRepository.stockIdAvailableRental(title, currentDate);
-                String stockIdAvailebleRentalIndex1 = (stockIdAvailableRental != null
-                        && !stockIdAvailableRental.isEmpty()) ? stockIdAvailableRental.get(0) : "×";
+            stockInfo[0] = availability.getTitle(); // 書籍名を配列の最初の要素に格納
+            stockInfo[1] = availability.getStockCount(); // 在庫数を配列の2番目の要素に格納
 
+            for (int dayOfMonth = 1; dayOfMonth <= daysInMonth; dayOfMonth++) {
                 List<Object> infoList = new ArrayList<>();
 
-                infoList.add(currentDate); // 日付
-                infoList.add(stockIdAvailebleRentalIndex1); // 在庫管理番号
-                infoList.add(countAvailableRental); // 在庫数
+                infoList.add(LocalDate.of(year, month, dayOfMonth)); // 日付
+                infoList.add(availability.getBookId()); // 書籍ID（貸出登録時に空き在庫を割り当てる）
+                infoList.add(availability.getFreeCounts()[dayOfMonth - 1]); // 在庫数
 
                 stockInfo[dayOfMonth + 1] = infoList;
             }
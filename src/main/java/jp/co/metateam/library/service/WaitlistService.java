@@ -0,0 +1,217 @@
+package jp.co.metateam.library.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.annotation.Timed;
+import jp.co.metateam.library.model.Account;
+import jp.co.metateam.library.model.BookMst;
+import jp.co.metateam.library.model.RentalManage;
+import jp.co.metateam.library.model.RentalPeriod;
+import jp.co.metateam.library.model.Stock;
+import jp.co.metateam.library.model.WaitlistEntry;
+import jp.co.metateam.library.repository.AccountRepository;
+import jp.co.metateam.library.repository.BookMstRepository;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.repository.StockRepository;
+import jp.co.metateam.library.repository.WaitlistEntryRepository;
+import jp.co.metateam.library.values.RentalStatus;
+import jp.co.metateam.library.values.StockStatus;
+import jp.co.metateam.library.values.WaitlistStatus;
+
+/**
+ * 書籍ごとの順番待ち（先着順）
+ * 在庫が空いた時点（返却・キャンセル、在庫の利用可への変更・追加）と順番待ちの登録時に、
+ * 空いている在庫に先頭の順番待ちを貸出待ちとして登録する。繰り上げられなかった順番待ちは毎日まとめて再試行する。
+ */
+@Service
+@Timed(value = "library.service", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
+public class WaitlistService {
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final RentalManageRepository rentalManageRepository;
+    private final StockRepository stockRepository;
+    private final BookMstRepository bookMstRepository;
+    private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository,
+            RentalManageRepository rentalManageRepository, StockRepository stockRepository,
+            BookMstRepository bookMstRepository, AccountRepository accountRepository, AccountCache accountCache,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.rentalManageRepository = rentalManageRepository;
+        this.stockRepository = stockRepository;
+        this.bookMstRepository = bookMstRepository;
+        this.accountRepository = accountRepository;
+        this.accountCache = accountCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 順番待ち中の登録（書籍ID・順番待ち番号順）
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> findWaiting() {
+        return this.waitlistEntryRepository.findWaiting();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isWaiting(Long bookId, String employeeId) {
+        return this.waitlistEntryRepository.existsByBookMstIdAndAccountEmployeeIdAndStatus(bookId, employeeId,
+                WaitlistStatus.WAITING.getValue());
+    }
+
+    /**
+     * 順番待ちの登録（末尾に追加する）
+     * 登録の時点で空いている在庫があれば、そのまま先頭から繰り上げる。
+     *
+     * @param rentalDays 繰り上げ時の貸出日数（繰り上げた日から数える）
+     */
+    @Transactional
+    public void join(Long bookId, String employeeId, int rentalDays) throws Exception {
+        BookMst bookMst = this.bookMstRepository.findById(bookId).orElse(null);
+        if (bookMst == null) {
+            throw new Exception("BookMst record not found.");
+        }
+        if (this.accountCache.findByEmployeeId(employeeId) == null) {
+            throw new Exception("Account not found.");
+        }
+        Account account = this.accountRepository.getReferenceById(employeeId);
+
+        // 在庫の行は順番待ちの追加より先にロックする（繰り上げ処理と同じく在庫→順番待ちの順にロックする）
+        List<Stock> stocks = this.stockRepository.findAvailableByBookIdForUpdate(bookId);
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setBookMst(bookMst);
+        entry.setAccount(account);
+        entry.setRentalDays(rentalDays);
+        entry.setStatus(WaitlistStatus.WAITING.getValue());
+
+        this.waitlistEntryRepository.save(entry);
+
+        promoteOnStocks(bookId, stocks);
+    }
+
+    @Transactional
+    public void cancel(Long id) throws Exception {
+        WaitlistEntry entry = this.waitlistEntryRepository.findById(id).orElse(null);
+        if (entry == null) {
+            throw new Exception("WaitlistEntry record not found.");
+        }
+        if (!WaitlistStatus.WAITING.getValue().equals(entry.getStatus())) {
+            return;
+        }
+        entry.setStatus(WaitlistStatus.CANCELED.getValue());
+        entry.setCanceledAt(new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * 繰り上げられなかった順番待ちの再試行（日付が変わると先頭の期間が他の貸出と重ならなくなることがある）
+     * 書籍ごとに別のトランザクションで、利用可能な在庫をロックして繰り上げる。
+     */
+    @Scheduled(cron = "${library.waitlist.promote-cron:0 10 0 * * *}")
+    public void promoteWaiting() {
+        for (Long bookId : this.waitlistEntryRepository.findWaitingBookIds()) {
+            this.transactionTemplate.executeWithoutResult(status -> promoteOnStocks(bookId,
+                    this.stockRepository.findAvailableByBookIdForUpdate(bookId)));
+        }
+    }
+
+    /**
+     * 空いた在庫に、書籍の順番待ちの先頭を貸出待ちとして登録する
+     * （RentalManageService.update の返却・キャンセル、StockService の在庫の利用可への変更・追加から呼び出す）
+     * 在庫の行は呼び出し元でロック済みであること。
+     *
+     * 先頭の1件だけを索引から読むため、順番待ちの件数によらず処理時間は一定。
+     * 先頭の希望期間がこの在庫の他の貸出と重なる場合は繰り上げず、後ろの順番待ちも探さない（先着順を守る）。
+     * その場合は、他の在庫が空いた時点か、毎日の再試行（promoteWaiting）で繰り上げる。
+     *
+     * @return 登録した貸出（繰り上げなかった場合はnull）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public RentalManage promoteNext(Stock stock) {
+        if (!isAvailable(stock)) {
+            return null;
+        }
+        WaitlistEntry entry = findHead(stock.getBookMst().getId());
+        return entry != null ? promote(entry, stock) : null;
+    }
+
+    /**
+     * ロック済みの在庫に、先頭から順に繰り上げる（先頭がどの在庫にも入らない場合はそこで止める）
+     */
+    private void promoteOnStocks(Long bookId, List<Stock> lockedStocks) {
+        List<Stock> stocks = new ArrayList<>(lockedStocks);
+        while (!stocks.isEmpty()) {
+            WaitlistEntry entry = findHead(bookId);
+            if (entry == null) {
+                return;
+            }
+            Stock promotedOn = null;
+            for (Stock stock : stocks) {
+                if (promote(entry, stock) != null) {
+                    promotedOn = stock;
+                    break;
+                }
+            }
+            if (promotedOn == null) {
+                return;
+            }
+            stocks.remove(promotedOn);
+        }
+    }
+
+    private WaitlistEntry findHead(Long bookId) {
+        List<WaitlistEntry> head = this.waitlistEntryRepository.findHeadForUpdate(bookId, PageRequest.of(0, 1));
+        return head.isEmpty() ? null : head.get(0);
+    }
+
+    private RentalManage promote(WaitlistEntry entry, Stock stock) {
+        LocalDate from = LocalDate.now(ZoneId.of("Asia/Tokyo"));
+        LocalDate to = from.plusDays(entry.getRentalDays());
+        // 在庫のロック取得後のため、索引ではなくSQLで重複を確認する
+        if (this.rentalManageRepository.existsOverlap(stock.getId(), 0L, AvailabilityService.toDate(from),
+                AvailabilityService.toDate(to)) != 0) {
+            return null;
+        }
+
+        RentalManage rentalManage = new RentalManage();
+        rentalManage.setAccount(entry.getAccount());
+        rentalManage.setStock(stock);
+        rentalManage.setStatus(RentalStatus.RENT_WAIT.getValue());
+        rentalManage.setExpectedRentalOn(AvailabilityService.toDate(from));
+        rentalManage.setExpectedReturnOn(AvailabilityService.toDate(to));
+        this.rentalManageRepository.save(rentalManage);
+
+        entry.setStatus(WaitlistStatus.PROMOTED.getValue());
+        entry.setPromotedAt(new Timestamp(System.currentTimeMillis()));
+        entry.setRentalManage(rentalManage);
+
+        this.eventPublisher.publishEvent(new RentalChangedEvent(rentalManage.getId(), null,
+                new RentalPeriod(rentalManage.getId(), stock.getId(), stock.getBookMst().getId(),
+                        rentalManage.getExpectedRentalOn(), rentalManage.getExpectedReturnOn())));
+        return rentalManage;
+    }
+
+    private static boolean isAvailable(Stock stock) {
+        return StockStatus.RENT_AVAILABLE.getValue().equals(stock.getStatus()) && stock.getDeletedAt() == null;
+    }
+}
@@ -0,0 +1,560 @@
+package jp.co.metateam.library.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import jp.co.metateam.library.constants.Constants;
+import jp.co.metateam.library.values.RentalStatus;
+
+/**
+ * 負荷試験・性能計測用のデータ生成（アカウント・書籍・在庫・貸出管理）
+ * 同じシード・件数・基準日を指定すれば同じデータになる。外部への接続はしない。
+ *
+ * <pre>
+ * java -cp target/classes jp.co.metateam.library.tools.DatasetGenerator --out=target/dataset --today=2024-06-01
+ * cd target/dataset && mysql --local-infile=1 -uroot -p mt_library &lt; load.sql
+ * </pre>
+ *
+ * 書籍の人気は順位に応じて偏らせ（在庫数・貸出件数とも人気の書籍ほど多い）、
+ * 在庫ごとの貸出期間は重ならないように並べる。貸出ステータスは基準日との前後関係で決める。
+ */
+public class DatasetGenerator {
+
+    /** 管理者のパスワード（admin、data.sql と同じハッシュ）。生成するアカウントはすべてこのパスワード */
+    public static final String PASSWORD_HASH = "$2a$10$sI.U8nPC19YYlHo60B./ku/k411YndrvU2Rl65Pvs7FiZDNr0t04i";
+
+    /** 書籍1冊あたりの在庫数の上限 */
+    private static final int MAX_COPIES_PER_BOOK = 20;
+
+    /** 人気の偏り（順位のべき乗の指数） */
+    private static final double POPULARITY_EXPONENT = 0.8;
+
+    /** 登録から貸出予定日までの日数の上限 */
+    private static final int MAX_LEAD_DAYS = 14;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] SURNAMES = { "佐藤", "鈴木", "高橋", "田中", "伊藤", "渡辺", "山本", "中村", "小林", "加藤",
+            "吉田", "山田", "佐々木", "山口", "松本", "井上", "木村", "林", "斎藤", "清水" };
+
+    private static final String[] GIVEN_NAMES = { "太郎", "花子", "翔太", "美咲", "大輔", "陽菜", "健太", "結衣", "拓也", "さくら",
+            "直樹", "愛", "亮", "真由美", "誠", "彩", "学", "恵", "達也", "優子" };
+
+    private static final String[] TITLE_PREFIXES = { "はじめての", "スッキリわかる", "実践", "図解", "徹底攻略", "やさしい", "現場で使える",
+            "独習", "プロになるための", "1週間でわかる", "" };
+
+    private static final String[] TITLE_TOPICS = { "Java", "Spring Boot", "SQL", "データベース設計", "Python", "JavaScript",
+            "TypeScript", "Linux", "ネットワーク", "セキュリティ", "アルゴリズム", "デザインパターン", "クラウド", "Docker", "Git",
+            "テスト駆動開発", "リーダーシップ", "マネジメント", "ロジカルシンキング", "ITパスポート", "基本情報技術者", "会計", "マーケティング",
+            "英語", "プレゼンテーション" };
+
+    private static final String[] TITLE_SUFFIXES = { "入門", "教科書", "実践ガイド", "完全ガイド", "の基本", "ハンドブック", "問題集",
+            "レシピ集", "の考え方", "" };
+
+    /**
+     * 生成するテーブルと列（LOAD DATA の列指定に使う）
+     */
+    public enum Table {
+        ACCOUNTS("accounts", "id", "employee_id", "name", "email", "password", "authorization_type", "created_at",
+                "updated_at"),
+        BOOK_MST("book_mst", "id", "isbn", "title", "deleted_at", "created_at", "updated_at"),
+        STOCKS("stocks", "id", "book_id", "status", "price", "deleted_at", "created_at", "updated_at"),
+        RENTAL_MANAGE("rental_manage", "id", "stock_id", "employee_id", "status", "expected_rental_on",
+                "expected_return_on", "rentaled_at", "returned_at", "canceled_at", "created_at", "updated_at");
+
+        private final String tableName;
+        private final String[] columns;
+
+        Table(String tableName, String... columns) {
+            this.tableName = tableName;
+            this.columns = columns;
+        }
+
+        public String getTableName() {
+            return this.tableName;
+        }
+
+        public String[] getColumns() {
+            return this.columns.clone();
+        }
+    }
+
+    /**
+     * 生成した行の出力先（値は String / Integer / Long / LocalDate / LocalDateTime / null）
+     */
+    public interface RowSink {
+        void accept(Table table, Object[] row) throws IOException;
+    }
+
+    private final long seed;
+    private final int accountCount;
+    private final int bookCount;
+    private final int stockCount;
+    private final int rentalCount;
+    private final int historyDays;
+    private final int futureDays;
+    private final LocalDate today;
+
+    /**
+     * @param seed         乱数のシード
+     * @param accountCount アカウント数
+     * @param bookCount    書籍数
+     * @param stockCount   在庫数（書籍数以上）
+     * @param rentalCount  貸出管理の件数
+     * @param historyDays  基準日より前の貸出履歴の日数
+     * @param futureDays   基準日より後の貸出予定の日数
+     * @param today        基準日
+     */
+    public DatasetGenerator(long seed, int accountCount, int bookCount, int stockCount, int rentalCount,
+            int historyDays, int futureDays, LocalDate today) {
+        if (accountCount < 1 || bookCount < 1 || stockCount < bookCount || rentalCount < 0) {
+            throw new IllegalArgumentException("accounts >= 1, books >= 1, stocks >= books, rentals >= 0");
+        }
+        this.seed = seed;
+        this.accountCount = accountCount;
+        this.bookCount = bookCount;
+        this.stockCount = stockCount;
+        this.rentalCount = rentalCount;
+        this.historyDays = historyDays;
+        this.futureDays = futureDays;
+        this.today = today;
+    }
+
+    /**
+     * 在庫管理番号（0始まりの連番から）
+     */
+    public static String stockId(int stockIndex) {
+        return "A" + zeroPad(stockIndex + 1, 7);
+    }
+
+    /**
+     * 社員番号（0始まりの連番から、先頭は data.sql の管理者と同じ 000001）
+     */
+    public static String employeeId(int accountIndex) {
+        return zeroPad(accountIndex + 1, 6);
+    }
+
+    private static String zeroPad(long value, int width) {
+        String digits = Long.toString(value);
+        return digits.length() >= width ? digits : "0".repeat(width - digits.length()) + digits;
+    }
+
+    /**
+     * 全テーブルの行を親テーブルから順に出力する（貸出管理は貸出予定日順に採番）
+     */
+    public void generate(RowSink sink) throws IOException {
+        SplittableRandom random = new SplittableRandom(this.seed);
+
+        generateAccounts(random.split(), sink);
+
+        // 書籍の人気順位（ランダムな並び）と、順位に応じた重み
+        int[] booksByRank = permutation(this.bookCount, random.split());
+        double[] bookWeights = new double[this.bookCount];
+        for (int rank = 0; rank < this.bookCount; rank++) {
+            bookWeights[booksByRank[rank]] = 1.0 / StrictMath.pow(rank + 1, POPULARITY_EXPONENT);
+        }
+        generateBooks(random.split(), sink);
+
+        // 在庫：書籍ごとに1冊以上、人気の書籍ほど多く（書籍ID順に在庫管理番号を採番）
+        int[] copies = allocate(this.stockCount, bookWeights, booksByRank, 1, MAX_COPIES_PER_BOOK);
+        int[] firstStockOfBook = new int[this.bookCount + 1];
+        for (int book = 0; book < this.bookCount; book++) {
+            firstStockOfBook[book + 1] = firstStockOfBook[book] + copies[book];
+        }
+        int stocks = firstStockOfBook[this.bookCount];
+        int[] bookOfStock = new int[stocks];
+        for (int book = 0; book < this.bookCount; book++) {
+            for (int stock = firstStockOfBook[book]; stock < firstStockOfBook[book + 1]; stock++) {
+                bookOfStock[stock] = book;
+            }
+        }
+        boolean[] available = generateStocks(random.split(), sink, bookOfStock);
+
+        // 貸出：在庫ごとの件数を書籍の人気で配分し、期間の重ならない枠に並べる
+        double[] stockWeights = new double[stocks];
+        int[] stocksByRank = new int[stocks];
+        int position = 0;
+        for (int book : booksByRank) {
+            for (int stock = firstStockOfBook[book]; stock < firstStockOfBook[book + 1]; stock++) {
+                stockWeights[stock] = bookWeights[book];
+                stocksByRank[position++] = stock;
+            }
+        }
+        int windowDays = this.historyDays + this.futureDays;
+        int[] rentalsPerStock = allocate(this.rentalCount, stockWeights, stocksByRank, 0, Math.max(1, windowDays / 3));
+        generateRentals(random.split(), sink, rentalsPerStock, available, windowDays);
+    }
+
+    private void generateAccounts(SplittableRandom random, RowSink sink) throws IOException {
+        LocalDateTime base = this.today.minusDays(this.historyDays).atTime(9, 0);
+        for (int account = 0; account < this.accountCount; account++) {
+            LocalDateTime createdAt = base.plusMinutes(random.nextInt(60 * 24 * 30));
+            boolean admin = account == 0 || random.nextInt(100) == 0;
+            String name = account == 0 ? "管理太郎"
+                    : SURNAMES[random.nextInt(SURNAMES.length)] + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+            String email = account == 0 ? "admin@example.com" : String.format("user%06d@example.com", account + 1);
+            sink.accept(Table.ACCOUNTS, new Object[] { (long) account + 1, employeeId(account), name, email,
+                    PASSWORD_HASH, admin ? 1 : 0, createdAt, createdAt });
+        }
+    }
+
+    private void generateBooks(SplittableRandom random, RowSink sink) throws IOException {
+        LocalDateTime base = this.today.minusDays(this.historyDays + 30).atTime(10, 0);
+        for (int book = 0; book < this.bookCount; book++) {
+            String title = TITLE_PREFIXES[random.nextInt(TITLE_PREFIXES.length)]
+                    + TITLE_TOPICS[random.nextInt(TITLE_TOPICS.length)]
+                    + TITLE_SUFFIXES[random.nextInt(TITLE_SUFFIXES.length)];
+            int edition = random.nextInt(5);
+            if (edition > 0) {
+                title += " 第" + (edition + 1) + "版";
+            }
+            LocalDateTime createdAt = base.plusMinutes(random.nextInt(60 * 24 * 30));
+            sink.accept(Table.BOOK_MST, new Object[] { (long) book + 1, isbn(book), title, null, createdAt,
+                    createdAt });
+        }
+    }
+
+    /**
+     * @return 在庫ごとの利用可否
+     */
+    private boolean[] generateStocks(SplittableRandom random, RowSink sink, int[] bookOfStock) throws IOException {
+        boolean[] available = new boolean[bookOfStock.length];
+        LocalDateTime base = this.today.minusDays(this.historyDays + 30).atTime(10, 0);
+        int price = 0;
+        for (int stock = 0; stock < bookOfStock.length; stock++) {
+            int book = bookOfStock[stock];
+            // 同じ書籍の在庫は同じ購入金額
+            if (stock == 0 || bookOfStock[stock - 1] != book) {
+                price = 500 + random.nextInt(451) * 10;
+            }
+            // 3%は利用不可（うち3分の1は削除済み）
+            int roll = random.nextInt(100);
+            available[stock] = roll >= 3;
+            LocalDateTime createdAt = base.plusMinutes(random.nextInt(60 * 24 * 30));
+            LocalDateTime deletedAt = roll == 0 ? createdAt.plusDays(random.nextInt(this.historyDays + 1)) : null;
+            sink.accept(Table.STOCKS, new Object[] { stockId(stock), (long) book + 1,
+                    available[stock] ? Constants.STOCK_AVAILABLE : Constants.STOCK_UNAVAILABLE, price, deletedAt,
+                    createdAt, deletedAt != null ? deletedAt : createdAt });
+        }
+        return available;
+    }
+
+    private void generateRentals(SplittableRandom random, RowSink sink, int[] rentalsPerStock, boolean[] available,
+            int windowDays) throws IOException {
+        int total = 0;
+        for (int count : rentalsPerStock) {
+            total += count;
+        }
+
+        // 在庫ごとに期間を [枠の開始, 枠の終了] の中に収める（返却予定日と次の貸出予定日の一致は重複にならない）
+        int[] stockOf = new int[total];
+        int[] startDayOf = new int[total];
+        byte[] durationOf = new byte[total];
+        int[] rentalsPerDay = new int[windowDays + 1];
+        int rental = 0;
+        for (int stock = 0; stock < rentalsPerStock.length; stock++) {
+            int count = rentalsPerStock[stock];
+            for (int slot = 0; slot < count; slot++) {
+                int slotStart = (int) ((long) slot * windowDays / count);
+                int slotEnd = (int) ((long) (slot + 1) * windowDays / count);
+                int duration = Math.min(rentalDuration(random), slotEnd - slotStart);
+                int startDay = slotStart + random.nextInt(slotEnd - slotStart - duration + 1);
+                stockOf[rental] = stock;
+                startDayOf[rental] = startDay;
+                durationOf[rental] = (byte) duration;
+                rentalsPerDay[startDay]++;
+                rental++;
+            }
+        }
+
+        // 貸出予定日順に並べ替えて採番する（日ごとの件数による分布数え上げソート）
+        int[] offsets = new int[windowDays + 1];
+        for (int day = 1; day <= windowDays; day++) {
+            offsets[day] = offsets[day - 1] + rentalsPerDay[day - 1];
+        }
+        int[] order = new int[total];
+        for (int i = 0; i < total; i++) {
+            order[offsets[startDayOf[i]]++] = i;
+        }
+
+        LocalDate firstDay = this.today.minusDays(this.historyDays);
+        for (int id = 0; id < total; id++) {
+            int i = order[id];
+            LocalDate rentalOn = firstDay.plusDays(startDayOf[i]);
+            LocalDate returnOn = rentalOn.plusDays(durationOf[i]);
+            sink.accept(Table.RENTAL_MANAGE, rentalRow(random, id + 1L, stockOf[i], available[stockOf[i]],
+                    rentalOn, returnOn));
+        }
+    }
+
+    private Object[] rentalRow(SplittableRandom random, long id, int stock, boolean available, LocalDate rentalOn,
+            LocalDate returnOn) {
+        LocalDateTime createdAt = rentalOn.minusDays(random.nextInt(MAX_LEAD_DAYS + 1))
+                .atTime(9 + random.nextInt(9), random.nextInt(60));
+        LocalDateTime rentaledAt = rentalOn.atTime(9 + random.nextInt(9), random.nextInt(60));
+        LocalDateTime returnedAt = returnOn.atTime(9 + random.nextInt(9), random.nextInt(60));
+        if (createdAt.isAfter(rentaledAt)) {
+            createdAt = rentaledAt;
+        }
+        int roll = random.nextInt(100);
+
+        RentalStatus status;
+        if (returnOn.isBefore(this.today)) {
+            // 返却済みが大半、一部はキャンセル・延滞（返却予定日から2週間以内の貸出中）
+            if (roll < 8) {
+                status = RentalStatus.CANCELED;
+            } else if (roll < 18 && available && !returnOn.isBefore(this.today.minusDays(14))) {
+                status = RentalStatus.RENTAlING;
+            } else {
+                status = RentalStatus.RETURNED;
+            }
+        } else if (rentalOn.isAfter(this.today)) {
+            status = roll < 10 || !available ? RentalStatus.CANCELED : RentalStatus.RENT_WAIT;
+        } else if (rentalOn.isEqual(this.today)) {
+            status = roll < 50 ? RentalStatus.RENT_WAIT : RentalStatus.RENTAlING;
+        } else {
+            status = RentalStatus.RENTAlING;
+        }
+
+        // 利用者は一部の社員に偏らせる
+        int account = (int) (this.accountCount * StrictMath.pow(random.nextDouble(), 2));
+        LocalDateTime canceledAt = status == RentalStatus.CANCELED
+                ? createdAt.plusMinutes(random.nextInt(60 * 24))
+                : null;
+        if (canceledAt != null && canceledAt.isAfter(rentaledAt)) {
+            canceledAt = rentaledAt;
+        }
+        boolean rented = status == RentalStatus.RENTAlING || status == RentalStatus.RETURNED;
+        LocalDateTime updatedAt = status == RentalStatus.RETURNED ? returnedAt
+                : status == RentalStatus.RENTAlING ? rentaledAt
+                        : status == RentalStatus.CANCELED ? canceledAt : createdAt;
+
+        return new Object[] { id, stockId(stock), employeeId(account), status.getValue(), rentalOn, returnOn,
+                rented ? rentaledAt : null, status == RentalStatus.RETURNED ? returnedAt : null, canceledAt,
+                createdAt, updatedAt };
+    }
+
+    /**
+     * 貸出日数（返却予定日 - 貸出予定日）：1週間前後が多く、最長14日
+     */
+    private static int rentalDuration(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 15) {
+            return 1 + random.nextInt(3);
+        }
+        if (roll < 80) {
+            return 5 + random.nextInt(5);
+        }
+        return 10 + random.nextInt(5);
+    }
+
+    /**
+     * 合計 total を重みに比例して配分する（各要素は min 以上 cap 以下、端数は重みの大きい順に1ずつ）
+     *
+     * @param byRank 重みの大きい順の添字
+     */
+    static int[] allocate(long total, double[] weights, int[] byRank, int min, int cap) {
+        int[] counts = new int[weights.length];
+        long remaining = total - (long) min * weights.length;
+        if (remaining < 0) {
+            throw new IllegalArgumentException("total is smaller than the minimum allocation");
+        }
+        double weightSum = 0;
+        for (double weight : weights) {
+            weightSum += weight;
+        }
+
+        long assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            counts[i] = (int) Math.min(cap, min + (long) (remaining * weights[i] / weightSum));
+            assigned += counts[i] - min;
+        }
+
+        long leftover = remaining - assigned;
+        boolean progressed = true;
+        while (leftover > 0 && progressed) {
+            progressed = false;
+            for (int i = 0; i < byRank.length && leftover > 0; i++) {
+                if (counts[byRank[i]] < cap) {
+                    counts[byRank[i]]++;
+                    leftover--;
+                    progressed = true;
+                }
+            }
+        }
+        if (leftover > 0) {
+            System.err.printf("Allocation capped at %d per item: %d left unallocated%n", cap, leftover);
+        }
+        return counts;
+    }
+
+    private static int[] permutation(int size, SplittableRandom random) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+    /**
+     * ISBN-13（978-4 + 書籍IDの8桁 + チェックディジット）
+     */
+    private static String isbn(int book) {
+        String body = String.format("9784%08d", book + 1);
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    /**
+     * テーブルごとのTSV（LOAD DATA の既定の形式、NULLは \N）
+     */
+    public static class TsvSink implements RowSink, AutoCloseable {
+        private final Path directory;
+        private final Map<Table, Writer> writers = new EnumMap<>(Table.class);
+        private final Map<Table, Long> rowCounts = new EnumMap<>(Table.class);
+
+        public TsvSink(Path directory) throws IOException {
+            this.directory = Files.createDirectories(directory);
+        }
+
+        @Override
+        public void accept(Table table, Object[] row) throws IOException {
+            Writer writer = this.writers.get(table);
+            if (writer == null) {
+                writer = Files.newBufferedWriter(this.directory.resolve(table.getTableName() + ".tsv"),
+                        StandardCharsets.UTF_8);
+                writer = new BufferedWriter(writer, 1 << 20);
+                this.writers.put(table, writer);
+            }
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writer.write(format(row[i]));
+            }
+            writer.write('\n');
+
+            long count = this.rowCounts.merge(table, 1L, Long::sum);
+            if (count % 1_000_000 == 0) {
+                System.out.printf("%s: %,d rows%n", table.getTableName(), count);
+            }
+        }
+
+        public long getRowCount(Table table) {
+            return this.rowCounts.getOrDefault(table, 0L);
+        }
+
+        /**
+         * 取り込み用のSQL（mysqlクライアントで出力先ディレクトリから実行する）
+         */
+        public void writeLoadScript() throws IOException {
+            StringBuilder sql = new StringBuilder();
+            sql.append("-- DatasetGenerator の出力を取り込む（既存データは削除する）\n");
+            sql.append("-- cd <出力先> && mysql --local-infile=1 -uroot -p mt_library < load.sql\n");
+            sql.append("SET foreign_key_checks = 0;\n");
+            sql.append("SET unique_checks = 0;\n");
+            Table[] tables = Table.values();
+            for (int i = tables.length - 1; i >= 0; i--) {
+                sql.append("TRUNCATE TABLE ").append(tables[i].getTableName()).append(";\n");
+            }
+            for (Table table : tables) {
+                sql.append("LOAD DATA LOCAL INFILE '").append(table.getTableName()).append(".tsv'")
+                        .append(" INTO TABLE ").append(table.getTableName())
+                        .append(" CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' (")
+                        .append(String.join(", ", table.getColumns())).append(");\n");
+            }
+            sql.append("SET unique_checks = 1;\n");
+            sql.append("SET foreign_key_checks = 1;\n");
+            sql.append("ANALYZE TABLE accounts, book_mst, stocks, rental_manage;\n");
+            Files.writeString(this.directory.resolve("load.sql"), sql, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (Writer writer : this.writers.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private static String format(Object value) {
+            if (value == null) {
+                return "\\N";
+            }
+            if (value instanceof LocalDateTime dateTime) {
+                return dateTime.format(DATE_TIME);
+            }
+            return value.toString();
+        }
+    }
+
+    /**
+     * --name=value 形式の引数（未指定は既定値）
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: DatasetGenerator [--out=target/dataset] [--seed=42] [--accounts=5000]"
+                        + " [--books=50000] [--stocks=200000] [--rentals=5000000] [--history-days=1095]"
+                        + " [--future-days=60] [--today=yyyy-MM-dd]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        Path out = Paths.get(options.getOrDefault("out", "target/dataset"));
+        LocalDate today = options.containsKey("today") ? LocalDate.parse(options.get("today")) : LocalDate.now();
+        DatasetGenerator generator = new DatasetGenerator(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Integer.parseInt(options.getOrDefault("accounts", "5000")),
+                Integer.parseInt(options.getOrDefault("books", "50000")),
+                Integer.parseInt(options.getOrDefault("stocks", "200000")),
+                Integer.parseInt(options.getOrDefault("rentals", "5000000")),
+                Integer.parseInt(options.getOrDefault("history-days", "1095")),
+                Integer.parseInt(options.getOrDefault("future-days", "60")),
+                today);
+
+        long started = System.nanoTime();
+        try (TsvSink sink = new TsvSink(out)) {
+            generator.generate(sink);
+            sink.writeLoadScript();
+            System.out.printf("Generated into %s (today=%s) in %d ms:%n", out.toAbsolutePath(), today,
+                    (System.nanoTime() - started) / 1_000_000);
+            for (Table table : Table.values()) {
+                System.out.printf("  %s: %,d rows%n", table.getTableName(), sink.getRowCount(table));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
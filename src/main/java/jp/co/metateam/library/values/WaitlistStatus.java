@@ -0,0 +1,14 @@
+package jp.co.metateam.library.values;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum WaitlistStatus implements Values {
+    WAITING(0, "順番待ち"), PROMOTED(1, "貸出待ちに繰り上げ"), CANCELED(2, "取り消し");
+
+    private final Integer value;
+    private final String text;
+
+}
@@ -0,0 +1,26 @@
+-- 一覧・在庫カレンダー・貸出登録で使う検索の索引
+-- 索引の利用は QueryPlanTest（MySQLのTestcontainersによる結合テスト）で確認する
+
+-- 在庫ごとの貸出待ち・貸出中の期間（重複確認 existsOverlap、空き在庫 findFreeStockIds、一括貸出登録）
+CREATE INDEX idx_rental_manage_stock_status_period
+    ON rental_manage (stock_id, status, expected_rental_on, expected_return_on);
+
+-- 貸出ステータスと期間（在庫カレンダー findActivePeriodsBetween、索引の構築、監視用の件数）
+CREATE INDEX idx_rental_manage_status_period
+    ON rental_manage (status, expected_rental_on, expected_return_on, stock_id);
+
+-- 貸出一覧のページ送り（貸出予定日・貸出管理番号順）
+CREATE INDEX idx_rental_manage_rental_on_id
+    ON rental_manage (expected_rental_on, id);
+
+-- 書籍ごとの利用可能在庫（書籍一覧の在庫数、空き在庫の検索）
+CREATE INDEX idx_stocks_book_status_deleted
+    ON stocks (book_id, status, deleted_at);
+
+-- 利用可能在庫の一覧（在庫カレンダー findAvailableSummaries、監視用の件数）
+CREATE INDEX idx_stocks_status_deleted_book
+    ON stocks (status, deleted_at, book_id);
+
+-- 書籍名（在庫カレンダーの書籍名、書籍名での検索）
+CREATE INDEX idx_book_mst_title
+    ON book_mst (title);
@@ -0,0 +1,25 @@
+-- 書籍ごとの順番待ち（先着順）
+-- 貸出が返却済み・キャンセルになると、先頭の順番待ちを貸出待ちとして登録する（WaitlistService.promoteNext）
+
+CREATE TABLE IF NOT EXISTS waitlist_entries
+(
+    id bigint NOT NULL AUTO_INCREMENT comment '順番待ち番号（登録順）',
+    book_id bigint NOT NULL comment '書籍ID',
+    employee_id varchar(50) NOT NULL comment '社員番号',
+    rental_days int NOT NULL comment '希望する貸出日数',
+    status tinyint NOT NULL DEFAULT 0 comment '順番待ちステータス',
+    rental_id bigint comment '繰り上げで登録した貸出管理番号',
+    promoted_at datetime comment '繰り上げ日時',
+    canceled_at datetime comment '取り消し日時',
+    created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    -- 書籍ごとの先頭（status = 0 の最小のid）を索引の1行目で取得する（順番待ちの件数によらない）
+    INDEX idx_waitlist_entries_book_status_id (book_id, status, id),
+    INDEX idx_waitlist_entries_employee_status (employee_id, status),
+    FOREIGN KEY fk_waitlist_entries_book_id (book_id) REFERENCES book_mst (id),
+    FOREIGN KEY fk_waitlist_entries_employee_id (employee_id) REFERENCES accounts (employee_id),
+    FOREIGN KEY fk_waitlist_entries_rental_id (rental_id) REFERENCES rental_manage (id)
+)
+COMMENT = '順番待ち'
+ENGINE=InnoDB AUTO_INCREMENT=1 DEFAULT CHARSET=utf8mb4;
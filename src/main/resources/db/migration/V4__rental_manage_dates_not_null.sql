@@ -0,0 +1,15 @@
+-- 貸出予定日・返却予定日を必須にする（貸出一覧のページ送りのカーソルは貸出予定日を使うため、NULLの行があると作れない）
+-- 画面・一括貸出登録・順番待ちの繰り上げはいずれも両方を設定しており、NULLの行は初期データ・手作業の登録のみ
+
+-- 未設定の行は、貸出日（なければ登録日時）と返却日（なければ貸出予定日）で埋める
+UPDATE rental_manage
+   SET expected_rental_on = COALESCE(DATE(rentaled_at), DATE(created_at))
+ WHERE expected_rental_on IS NULL;
+
+UPDATE rental_manage
+   SET expected_return_on = COALESCE(DATE(returned_at), expected_rental_on)
+ WHERE expected_return_on IS NULL;
+
+ALTER TABLE rental_manage
+    MODIFY expected_rental_on date NOT NULL comment '貸出予定日',
+    MODIFY expected_return_on date NOT NULL comment '返却予定日';
@@ -0,0 +1,46 @@
+// 社員番号の入力補完
+// 入力した社員番号・氏名の先頭で候補を検索し、選択肢（datalist）と選択中の社員の氏名を表示する
+$(function() {
+    const $input = $("#employeeId");
+    const $options = $("#employeeOptions");
+    const $name = $("#employeeName");
+    const searchUrl = $input.data("search-url");
+    let timer = null;
+    let lastQuery = null;
+
+    function search() {
+        const query = $input.val().trim();
+        if (query === lastQuery) {
+            return;
+        }
+        lastQuery = query;
+        if (query === "") {
+            $options.empty();
+            $name.text("");
+            return;
+        }
+        $.getJSON(searchUrl, { q: query, limit: 10 }, function(accounts) {
+            // 応答までに入力が変わっていれば捨てる
+            if (query !== lastQuery) {
+                return;
+            }
+            $options.empty();
+            let selected = null;
+            $.each(accounts, function(i, account) {
+                $("<option>").val(account.employeeId).text(account.name).appendTo($options);
+                if (account.employeeId === query) {
+                    selected = account;
+                }
+            });
+            $name.text(selected !== null ? selected.name : "");
+        });
+    }
+
+    $input.on("input", function() {
+        clearTimeout(timer);
+        timer = setTimeout(search, 150);
+    });
+
+    // 入力エラーで戻った場合・編集画面では、入力済みの社員の氏名を表示する
+    search();
+});
@@ -0,0 +1,72 @@
+// 在庫管理番号の選択肢
+// 書籍名の先頭と貸出・返却予定日から、期間内に空いている在庫だけを検索して選択肢を作り直す
+// 登録画面では書籍ごとに「自動で割り当て」を選べる（在庫管理番号は空のまま書籍IDを送信し、登録時に在庫を割り当てる）
+$(function() {
+    const $title = $("#bookTitle");
+    const $from = $("#expectedRentalOn");
+    const $to = $("#expectedReturnOn");
+    const $select = $("#stockMngNumber");
+    const $bookId = $("#bookId");
+    const autoAssign = $select.data("auto-assign") === true;
+    const searchUrl = $title.data("search-url");
+    const rentalId = $title.data("rental-id");
+    const placeholder = $select.find("option[value='']").first().clone();
+    let timer = null;
+    let lastQuery = null;
+
+    function search() {
+        const params = { title: $title.val().trim(), from: $from.val(), to: $to.val() };
+        if (rentalId) {
+            params.rentalId = rentalId;
+        }
+        const query = $.param(params);
+        // 条件がそろうまで・変わらない間は検索しない（選択済みの在庫はそのまま残す）
+        if (params.title === "" || params.from === "" || params.to === "" || query === lastQuery) {
+            return;
+        }
+        lastQuery = query;
+        $.getJSON(searchUrl, params, function(stocks) {
+            // 応答までに条件が変わっていれば捨てる
+            if (query !== lastQuery) {
+                return;
+            }
+            const selected = $select.val();
+            const selectedBookId = String($select.find("option:selected").data("book-id") || "");
+            $select.empty().append(placeholder.clone());
+            if (stocks.length === 0) {
+                $select.find("option").first().text("空いている在庫はありません");
+            }
+            let lastBookId = null;
+            $.each(stocks, function(i, stock) {
+                // 結果は書籍ID順のため、書籍が変わるたびに自動割り当ての選択肢を先に追加する
+                if (autoAssign && stock.bookId !== lastBookId) {
+                    lastBookId = stock.bookId;
+                    $("<option>").val("").attr("data-book-id", stock.bookId)
+                        .text(stock.title + "（空いている在庫を自動で割り当て）").appendTo($select);
+                }
+                $("<option>").val(stock.id).text(stock.id + " " + stock.title).appendTo($select);
+            });
+            // 選択中の在庫・書籍が引き続き空いていれば選択を残す
+            const $keep = $select.find("option").filter(function() {
+                return selectedBookId !== ""
+                    ? String($(this).data("book-id") || "") === selectedBookId
+                    : selected !== "" && this.value === selected;
+            }).first();
+            $select.find("option").prop("selected", false);
+            ($keep.length > 0 ? $keep : $select.find("option").first()).prop("selected", true);
+            syncBookId();
+        });
+    }
+
+    // 自動割り当てを選んだ場合のみ書籍IDを送信する
+    function syncBookId() {
+        $bookId.val($select.find("option:selected").data("book-id") || "");
+    }
+
+    $title.on("input", function() {
+        clearTimeout(timer);
+        timer = setTimeout(search, 200);
+    });
+    $from.add($to).on("change", search);
+    $select.on("change", syncBookId);
+});
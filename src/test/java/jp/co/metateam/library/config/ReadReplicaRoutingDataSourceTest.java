@@ -0,0 +1,62 @@
+package jp.co.metateam.library.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 読み取り専用トランザクションの振り分け先
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private final ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(
+            new ReadYourWritesInterceptor(0));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyGetGoesToReplica() {
+        inRequest("GET", true);
+
+        assertThat(this.routing.determineCurrentLookupKey()).isEqualTo(ReadReplicaRoutingDataSource.REPLICA);
+    }
+
+    @Test
+    void readWriteTransactionGoesToPrimary() {
+        inRequest("GET", false);
+
+        assertThat(this.routing.determineCurrentLookupKey()).isEqualTo(ReadReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void writeRequestGoesToPrimary() {
+        inRequest("POST", true);
+
+        assertThat(this.routing.determineCurrentLookupKey()).isEqualTo(ReadReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void versionedRenderGoesToPrimary() {
+        // ETag・断片キャッシュの更新回数に合わせて描画するリクエスト
+        MockHttpServletRequest request = inRequest("GET", true);
+        ReadReplicaRoutingDataSource.requirePrimary(request);
+
+        assertThat(this.routing.determineCurrentLookupKey()).isEqualTo(ReadReplicaRoutingDataSource.PRIMARY);
+    }
+
+    private static MockHttpServletRequest inRequest(String method, boolean readOnly) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/book/index");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        return request;
+    }
+}
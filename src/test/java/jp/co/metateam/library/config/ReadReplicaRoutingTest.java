@@ -0,0 +1,149 @@
+package jp.co.metateam.library.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import jakarta.persistence.EntityManagerFactory;
+import jp.co.metateam.library.model.BookMstDto;
+import jp.co.metateam.library.service.BookMstService;
+import jp.co.metateam.library.service.RentalManageService;
+
+/**
+ * レプリカへの振り分け（LazyConnectionDataSourceProxy・open-in-view を通した実際の接続先）
+ * プライマリ・レプリカを別々のH2に作り、レプリカだけ書籍名と貸出件数を変えておくことで、どちらから読んだかを判定する。
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:mt_library_routing;" + ReadReplicaRoutingTest.H2_OPTIONS,
+        "library.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "library.datasource.read-your-writes-ms=60000" })
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ReadReplicaRoutingTest {
+
+    static final String H2_OPTIONS = "MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_URL = "jdbc:h2:mem:mt_library_replica;" + H2_OPTIONS;
+
+    private static final String REPLICA_TITLE = "Java入門（レプリカ）";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookMstService bookMstService;
+
+    @Autowired
+    private RentalManageService rentalManageService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    /**
+     * レプリカに同じデータを投入し、書籍名と貸出件数だけ変える（起動前に行う）
+     */
+    @BeforeAll
+    static void createReplica() throws Exception {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:benchmark/schema-h2.sql'");
+            statement.execute("DELETE FROM rental_manage");
+            statement.execute("DELETE FROM stocks");
+            statement.execute("DELETE FROM book_mst");
+            statement.execute("DELETE FROM accounts");
+            statement.execute("RUNSCRIPT FROM 'classpath:test-data-h2.sql'");
+            statement.execute("UPDATE book_mst SET title = '" + REPLICA_TITLE + "' WHERE id = 1");
+            statement.execute("DELETE FROM rental_manage WHERE id = 6");
+        }
+    }
+
+    @BeforeEach
+    void clearCaches() {
+        // エンティティ・クエリを第2レベルキャッシュから返さず、接続先から読ませる
+        this.entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    @WithMockUser(username = "sato@example.com")
+    void readOnlyScreenReadsReplica() throws Exception {
+        this.mockMvc.perform(get("/stock/A00001"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(REPLICA_TITLE)));
+    }
+
+    @Test
+    void readOnlyServiceReadsReplica() {
+        // テスト実行時に用意される模擬リクエスト（メソッド未設定のため更新リクエスト扱い）を外し、リクエスト外から呼び出す
+        RequestContextHolder.resetRequestAttributes();
+
+        assertThat(this.bookMstService.findAvailableWithStockCount(null, null, null).getContent())
+                .extracting(BookMstDto::getTitle)
+                .contains(REPLICA_TITLE);
+        assertThat(this.rentalManageService.findPage(null, null, null).getContent()).hasSize(5);
+    }
+
+    @Test
+    @WithMockUser(username = "suzuki@example.com")
+    void versionKeyedScreenReadsPrimary() throws Exception {
+        this.mockMvc.perform(get("/book/index"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString(REPLICA_TITLE))));
+    }
+
+    @Test
+    @WithMockUser(username = "yamada@example.com")
+    void writeGoesToPrimaryAndLaterReadsFollowIt() throws Exception {
+        this.mockMvc.perform(post("/stock/A00002/edit").with(csrf())
+                .param("id", "A00002")
+                .param("bookId", "1")
+                .param("status", "0")
+                .param("price", "4321"));
+
+        assertThat(priceOf(this.primaryDataSource)).isEqualTo(4321);
+        assertThat(priceOf(this.replicaDataSource)).isEqualTo(3000);
+
+        // 更新した利用者の直後の参照はプライマリから読む
+        clearCaches();
+        this.mockMvc.perform(get("/stock/A00001"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString(REPLICA_TITLE))));
+    }
+
+    private static Integer priceOf(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT price FROM stocks WHERE id = 'A00002'",
+                Integer.class);
+    }
+}
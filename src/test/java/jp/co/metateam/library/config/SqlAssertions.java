@@ -0,0 +1,66 @@
+package jp.co.metateam.library.config;
+
+import java.util.Map;
+
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * 画面ごとに実行したSQLの件数の確認（SqlBudgetFilter がリクエスト属性に残した SqlStatementStats を使う）
+ *
+ * <pre>
+ * MvcResult result = mockMvc.perform(get("/book/index")).andReturn();
+ * SqlAssertions.assertStatementsAtMost(result, 2);
+ * </pre>
+ */
+public final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+    public static SqlStatementStats statsOf(MvcResult result) {
+        SqlStatementStats stats = SqlStatementStats.from(result.getRequest());
+        if (stats == null) {
+            throw new AssertionError("SQL statements were not measured (library.sql-budget.enabled=false?)");
+        }
+        return stats;
+    }
+
+    /**
+     * SQLの件数が指定どおりでなければAssertionError
+     */
+    public static void assertStatements(MvcResult result, int expected) {
+        SqlStatementStats stats = statsOf(result);
+        if (stats.getStatementCount() != expected) {
+            throw new AssertionError("Expected " + expected + " SQL statements for " + describe(result) + " but "
+                    + stats.getStatementCount() + " were executed:" + stats.describeShapes());
+        }
+    }
+
+    /**
+     * SQLの件数が上限を超えていればAssertionError
+     */
+    public static void assertStatementsAtMost(MvcResult result, int max) {
+        SqlStatementStats stats = statsOf(result);
+        if (stats.getStatementCount() > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements for " + describe(result)
+                    + " but " + stats.getStatementCount() + " were executed:" + stats.describeShapes());
+        }
+    }
+
+    /**
+     * 同じSQLを上限を超えて繰り返していればAssertionError（N+1の検出用）
+     */
+    public static void assertNoRepeatedStatements(MvcResult result, int maxRepeats) {
+        SqlStatementStats stats = statsOf(result);
+        for (Map.Entry<String, Integer> entry : stats.getRepeatedShapes()) {
+            if (entry.getValue() > maxRepeats) {
+                throw new AssertionError("Expected each SQL statement at most " + maxRepeats + " times for "
+                        + describe(result) + ":" + stats.describeShapes());
+            }
+        }
+    }
+
+    private static String describe(MvcResult result) {
+        return result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+    }
+}
@@ -0,0 +1,20 @@
+package jp.co.metateam.library.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jp.co.metateam.library.config.SqlAssertions;
+
+class BookControllerTest extends ScreenTestSupport {
+
+    @Test
+    void indexRunsOneStatement() throws Exception {
+        // findAvailableWithStockCount の1回で、書籍の1ページ分と在庫数をまとめて取得する（書籍の件数によらない）
+        MvcResult result = this.mockMvc.perform(get("/book/index")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 1);
+    }
+}
@@ -0,0 +1,63 @@
+package jp.co.metateam.library.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jp.co.metateam.library.config.SqlAssertions;
+
+/**
+ * 貸出一括登録（CSRFトークンなしで受け付ける、JSONの null の要素は400、社員はまとめて読み込む）
+ */
+class RentalBatchControllerTest extends ScreenTestSupport {
+
+    @Test
+    void acceptsCsvWithoutCsrfToken() throws Exception {
+        LocalDate from = LocalDate.now().plusDays(40);
+        String csv = "employee_id,stock_id,expected_rental_on,expected_return_on\n"
+                + "E0002,A00008," + from + "," + from.plusDays(7) + "\n";
+
+        this.mockMvc.perform(post("/rental/batch").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true));
+    }
+
+    @Test
+    void loadsUncachedAccountsInOneStatement() throws Exception {
+        LocalDate from = LocalDate.now().plusDays(50);
+        String period = "," + from + "," + from.plusDays(7) + "\n";
+        String csv = "employee_id,stock_id,expected_rental_on,expected_return_on\n"
+                + "E0001,A00006" + period + "E0002,A00007" + period + "E0003,A00008" + period;
+
+        MvcResult result = this.mockMvc.perform(post("/rental/batch").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[2].success").value(true))
+                .andReturn();
+
+        // アカウントのキャッシュは各テストの前に破棄している
+        int accountQueries = SqlAssertions.statsOf(result).getShapes().entrySet().stream()
+                .filter(shape -> shape.getKey().toLowerCase().contains("from accounts"))
+                .mapToInt(shape -> shape.getValue())
+                .sum();
+        assertThat(accountQueries).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsNullElement() throws Exception {
+        this.mockMvc.perform(post("/rental/batch").contentType(MediaType.APPLICATION_JSON).content("[null]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void formPostStillRequiresCsrfToken() throws Exception {
+        this.mockMvc.perform(post("/rental/waitlist").param("bookId", "1"))
+                .andExpect(status().isForbidden());
+    }
+}
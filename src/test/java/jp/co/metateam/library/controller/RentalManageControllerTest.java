@@ -0,0 +1,40 @@
+package jp.co.metateam.library.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jp.co.metateam.library.config.SqlAssertions;
+
+/**
+ * 貸出の画面ごとのSQLの件数（貸出・社員・在庫の件数によらず一定）
+ */
+class RentalManageControllerTest extends ScreenTestSupport {
+
+    @Test
+    void indexRunsOneStatement() throws Exception {
+        // 貸出の1ページ分（社員・在庫・書籍を結合）
+        MvcResult result = this.mockMvc.perform(get("/rental/index")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 1);
+    }
+
+    @Test
+    void addRunsNoStatements() throws Exception {
+        // 社員・在庫は画面から検索するため、画面の表示ではSQLを実行しない
+        MvcResult result = this.mockMvc.perform(get("/rental/add")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 0);
+    }
+
+    @Test
+    void editRunsTwoStatements() throws Exception {
+        // 貸出（社員・在庫・書籍を結合）と、選択済みの在庫
+        MvcResult result = this.mockMvc.perform(get("/rental/1/edit")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 2);
+        SqlAssertions.assertNoRepeatedStatements(result, 1);
+    }
+}
@@ -0,0 +1,39 @@
+package jp.co.metateam.library.controller;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jakarta.persistence.EntityManagerFactory;
+import jp.co.metateam.library.service.AccountCache;
+
+/**
+ * 画面のテストの共通設定（H2のMySQLモード、test-data-h2.sql のデータ、ログイン済み）
+ * SQLの件数がキャッシュの状態で変わらないよう、各テストの前に第2レベルキャッシュ・アカウントのキャッシュを破棄する。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@WithMockUser(username = "yamada@example.com")
+abstract class ScreenTestSupport {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @BeforeEach
+    void clearCaches() {
+        this.entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        this.accountCache.invalidateAll();
+    }
+}
@@ -0,0 +1,41 @@
+package jp.co.metateam.library.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jp.co.metateam.library.config.SqlAssertions;
+
+/**
+ * 在庫の画面ごとのSQLの件数（在庫・貸出の件数によらず一定）
+ */
+class StockControllerTest extends ScreenTestSupport {
+
+    @Test
+    void indexRunsTwoStatements() throws Exception {
+        // 在庫の1ページ分（書籍を結合）と、そのページの在庫の貸出をまとめて取得
+        MvcResult result = this.mockMvc.perform(get("/stock/index")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 2);
+        SqlAssertions.assertNoRepeatedStatements(result, 1);
+    }
+
+    @Test
+    void editRunsTwoStatements() throws Exception {
+        // 書籍の選択肢と、在庫（書籍を結合）
+        MvcResult result = this.mockMvc.perform(get("/stock/A00001/edit")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 2);
+        SqlAssertions.assertNoRepeatedStatements(result, 1);
+    }
+
+    @Test
+    void calendarRunsOneStatement() throws Exception {
+        // 書籍の一覧のみ（在庫・貸出は AvailabilityIndex から読む）
+        MvcResult result = this.mockMvc.perform(get("/stock/calendar")).andExpect(status().isOk()).andReturn();
+
+        SqlAssertions.assertStatements(result, 1);
+    }
+}
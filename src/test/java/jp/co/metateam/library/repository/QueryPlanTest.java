@@ -0,0 +1,241 @@
+package jp.co.metateam.library.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import jp.co.metateam.library.MySqlTestSupport;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+/**
+ * 主要な検索がマイグレーション（db/migration）で追加した索引を使えるかをEXPLAINで確認する
+ * リポジトリのメソッドを実際に呼び出し、実行したSQLとバインド値を datasource-proxy で取得してEXPLAINする
+ * （SQLを書き写さないため、検索条件を変更した場合も変更後のSQLで確認する）。
+ * 件数の少ないDBではオプティマイザが全件走査を選ぶことがあるため、候補（possible_keys）・使用した索引（key）に含まれるかを確認する。
+ */
+class QueryPlanTest extends MySqlTestSupport {
+
+    @Autowired
+    private RentalManageRepository rentalManageRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final CapturingListener listener = new CapturingListener();
+
+    private final Date today = java.sql.Date.valueOf(LocalDate.now());
+
+    private final Date nextWeek = java.sql.Date.valueOf(LocalDate.now().plusDays(7));
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate.update("DELETE FROM waitlist_entries");
+        this.jdbcTemplate.update("DELETE FROM rental_manage");
+        this.jdbcTemplate.update("DELETE FROM stocks");
+        this.jdbcTemplate.update("DELETE FROM book_mst");
+        this.jdbcTemplate.update("DELETE FROM accounts");
+        this.jdbcTemplate.update("INSERT INTO accounts (employee_id, name, email, password, authorization_type)"
+                + " VALUES ('E0001', '山田 太郎', 'yamada@example.com', 'x', 0)");
+        this.jdbcTemplate.update("INSERT INTO book_mst (id, isbn, title) VALUES (1, '9784000000011', 'Java入門'),"
+                + " (2, '9784000000028', 'Spring Boot実践')");
+        this.jdbcTemplate.update("INSERT INTO stocks (id, book_id, status, price) VALUES ('A00001', 1, 0, 3000),"
+                + " ('A00002', 1, 0, 3000), ('A00003', 2, 0, 3500)");
+        this.jdbcTemplate.update("INSERT INTO rental_manage (id, stock_id, employee_id, status, expected_rental_on,"
+                + " expected_return_on) VALUES (1, 'A00001', 'E0001', 0, ?, ?)", this.today, this.nextWeek);
+        this.jdbcTemplate.update("INSERT INTO waitlist_entries (book_id, employee_id, rental_days, status)"
+                + " VALUES (1, 'E0001', 7, 0)");
+
+        // 第2レベルキャッシュ・クエリキャッシュから返さず、SQLを実行させる
+        this.entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        ((ProxyDataSource) this.dataSource).getProxyConfig().getQueryListener().addListener(this.listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((ProxyDataSource) this.dataSource).getProxyConfig().getQueryListener().getListeners().remove(this.listener);
+    }
+
+    @Test
+    void existsOverlapUsesStockStatusPeriodIndex() {
+        assertIndexUsable("idx_rental_manage_stock_status_period",
+                () -> this.rentalManageRepository.existsOverlap("A00001", 0L, this.today, this.nextWeek));
+    }
+
+    @Test
+    void activePeriodsBetweenUsesStatusPeriodIndex() {
+        assertIndexUsable("idx_rental_manage_status_period",
+                () -> this.rentalManageRepository.findActivePeriodsBetween(this.today, this.nextWeek));
+    }
+
+    @Test
+    void rentalPageUsesRentalOnIdIndex() {
+        assertIndexUsable("idx_rental_manage_rental_on_id",
+                () -> this.rentalManageRepository.findPageAscending(this.today, 0L, PageRequest.of(0, 20)));
+        assertIndexUsable("idx_rental_manage_rental_on_id",
+                () -> this.rentalManageRepository.findPageDescending(this.nextWeek, 0L, PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void freeStockIdsUseStockAndRentalIndexes() {
+        Runnable call = () -> this.stockRepository.findFreeStockIds(1L, this.today);
+        assertIndexUsable("idx_stocks_book_status_deleted", call);
+        assertIndexUsable("idx_rental_manage_stock_status_period", call);
+    }
+
+    @Test
+    void availableSummariesUseStatusDeletedBookIndex() {
+        assertIndexUsable("idx_stocks_status_deleted_book", () -> this.stockRepository.findAvailableSummaries());
+    }
+
+    @Test
+    void freeStocksBetweenUseTitleAndRentalIndexes() {
+        Runnable call = () -> this.stockRepository.findFreeStocksBetween(null, "Java%", this.today, this.nextWeek,
+                0L, PageRequest.of(0, 100));
+        assertIndexUsable("idx_book_mst_title", call);
+        assertIndexUsable("idx_rental_manage_stock_status_period", call);
+    }
+
+    @Test
+    void availableStocksForUpdateUseBookStatusIndex() {
+        assertIndexUsable("idx_stocks_book_status_deleted",
+                () -> this.stockRepository.findAvailableByBookIdForUpdate(1L));
+    }
+
+    @Test
+    void waitlistHeadUsesBookStatusIdIndex() {
+        assertIndexUsable("idx_waitlist_entries_book_status_id",
+                () -> this.waitlistEntryRepository.findHeadForUpdate(1L, PageRequest.of(0, 1)));
+    }
+
+    /**
+     * 呼び出しで実行したSELECTのいずれかのEXPLAINで、索引が候補または使用した索引に含まれること
+     */
+    private void assertIndexUsable(String index, Runnable call) {
+        List<CapturedQuery> queries = capture(call);
+        assertThat(queries).as("no SELECT executed").isNotEmpty();
+
+        StringBuilder plans = new StringBuilder();
+        for (CapturedQuery query : queries) {
+            List<Map<String, Object>> plan = explain(query);
+            for (Map<String, Object> row : plan) {
+                if (contains(row.get("possible_keys"), index) || contains(row.get("key"), index)) {
+                    return;
+                }
+            }
+            plans.append("\n  ").append(query.sql()).append("\n    ").append(plan);
+        }
+        throw new AssertionError(index + " is not usable for:" + plans);
+    }
+
+    private List<CapturedQuery> capture(Runnable call) {
+        this.listener.start();
+        try {
+            // 行ロックを取る検索もあるため、トランザクション内で呼び出す
+            this.transactionTemplate.executeWithoutResult(status -> call.run());
+        } finally {
+            this.listener.stop();
+        }
+        return this.listener.getQueries();
+    }
+
+    private List<Map<String, Object>> explain(CapturedQuery query) {
+        return this.jdbcTemplate.query("EXPLAIN " + query.sql(), (PreparedStatement ps) -> {
+            // 実行時と同じバインド値を設定する
+            for (ParameterSetOperation operation : query.parameters()) {
+                try {
+                    operation.getMethod().invoke(ps, operation.getArgs());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Failed to bind " + operation.getMethod().getName(), e);
+                }
+            }
+        }, new ColumnMapRowMapper());
+    }
+
+    private static boolean contains(Object keys, String index) {
+        return keys != null && List.of(keys.toString().split(",")).contains(index);
+    }
+
+    private record CapturedQuery(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    /**
+     * 取得中に実行したSELECTとバインド値を記録する
+     */
+    private static class CapturingListener implements QueryExecutionListener {
+
+        private final List<CapturedQuery> queries = new ArrayList<>();
+
+        private boolean capturing;
+
+        synchronized void start() {
+            this.queries.clear();
+            this.capturing = true;
+        }
+
+        synchronized void stop() {
+            this.capturing = false;
+        }
+
+        synchronized List<CapturedQuery> getQueries() {
+            return new ArrayList<>(this.queries);
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public synchronized void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (!this.capturing) {
+                return;
+            }
+            for (QueryInfo queryInfo : queryInfoList) {
+                if (!queryInfo.getQuery().trim().toLowerCase().startsWith("select")) {
+                    continue;
+                }
+                List<ParameterSetOperation> parameters = queryInfo.getParametersList().isEmpty()
+                        ? List.of()
+                        : queryInfo.getParametersList().get(0);
+                this.queries.add(new CapturedQuery(queryInfo.getQuery(), parameters));
+            }
+        }
+    }
+}
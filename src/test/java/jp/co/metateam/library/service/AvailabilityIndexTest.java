@@ -0,0 +1,135 @@
+package jp.co.metateam.library.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import jp.co.metateam.library.model.RentalPeriod;
+import jp.co.metateam.library.model.StockSummary;
+import jp.co.metateam.library.repository.RentalManageRepository;
+import jp.co.metateam.library.repository.StockRepository;
+
+/**
+ * AvailabilityIndex への差分の反映（参照側から反映途中の状態が見えないこと）
+ */
+class AvailabilityIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneId.systemDefault());
+
+    private static final int DAYS = 30;
+
+    /** 在庫2冊、貸出1件（在庫A、4日分） */
+    private static final RentalPeriod ON_A = period("A", 2, 5);
+
+    /** 同じ貸出を在庫B・別の期間に変更した場合 */
+    private static final RentalPeriod ON_B = period("B", 10, 13);
+
+    private static final List<StockSummary> STOCKS = List.of(
+            new StockSummary("A", 1L, "Java入門"), new StockSummary("B", 1L, "Java入門"));
+
+    private final StockRepository stockRepository = mock(StockRepository.class);
+
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+
+    private AvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        RentalManageRepository rentalManageRepository = mock(RentalManageRepository.class);
+        when(this.stockRepository.findAvailableSummaries()).thenReturn(STOCKS);
+        when(rentalManageRepository.findActivePeriods()).thenReturn(List.of(ON_A));
+
+        this.index = new AvailabilityIndex(this.stockRepository, rentalManageRepository, new DataVersion(),
+                this.taskScheduler, mock(PlatformTransactionManager.class), 30, 365);
+        this.index.rebuild();
+    }
+
+    @Test
+    void movingRentalUpdatesCountsAndIntervals() {
+        this.index.onRentalChanged(new RentalChangedEvent(1L, ON_A, ON_B));
+
+        assertThat(this.index.getFreeCount(1L, TODAY.plusDays(3))).isEqualTo(2);
+        assertThat(this.index.getFreeCount(1L, TODAY.plusDays(11))).isEqualTo(1);
+        assertThat(this.index.overlaps("A", TODAY.plusDays(2), TODAY.plusDays(5), null)).isFalse();
+        assertThat(this.index.overlaps("B", TODAY.plusDays(10), TODAY.plusDays(11), null)).isTrue();
+    }
+
+    @Test
+    void stockChangeUpdatesEveryDay() {
+        this.index.onStockChanged(new StockChangedEvent("B", 1L, true, false));
+
+        assertThat(this.index.getStockCount(1L)).isEqualTo(1);
+        assertThat(this.index.getFreeCount(1L, TODAY)).isEqualTo(1);
+        assertThat(this.index.getFreeCount(1L, TODAY.plusDays(3))).isEqualTo(0);
+    }
+
+    @Test
+    void readersNeverSeeHalfAppliedChange() throws Exception {
+        // 貸出日数は変わらないため、どの時点でも期間内の貸出可能数の合計は一定
+        long expected = sum(this.index.getFreeCounts(1L, TODAY, DAYS));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (running.get() && failure.get() == null) {
+                long actual = sum(this.index.getFreeCounts(1L, TODAY, DAYS));
+                if (actual != expected) {
+                    failure.set("sum of free counts was " + actual + ", expected " + expected);
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                this.index.onRentalChanged(i % 2 == 0
+                        ? new RentalChangedEvent(1L, ON_A, ON_B)
+                        : new RentalChangedEvent(1L, ON_B, ON_A));
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        assertThat(failure.get()).isNull();
+    }
+
+    @Test
+    void rebuildIsRescheduledWhenUpdatesDoNotSettle() {
+        // 構築のたびに更新がコミットされる
+        when(this.stockRepository.findAvailableSummaries()).thenAnswer(invocation -> {
+            this.index.onStockChanged(new StockChangedEvent("B", 1L, true, false));
+            return STOCKS;
+        });
+
+        this.index.rebuild();
+
+        verify(this.taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    private static RentalPeriod period(String stockId, int from, int to) {
+        return new RentalPeriod(1L, stockId, 1L, AvailabilityService.toDate(TODAY.plusDays(from)),
+                AvailabilityService.toDate(TODAY.plusDays(to)));
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,146 @@
+package jp.co.metateam.library.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jp.co.metateam.library.MySqlTestSupport;
+import jp.co.metateam.library.model.RentalManageDto;
+import jp.co.metateam.library.values.RentalStatus;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 同じ在庫・同じ期間への貸出登録を複数スレッドから同時に行い、重なる期間ごとに1件だけ登録されることを確認する
+ * （在庫の行ロック取得後にSQLで重複を再確認する RentalManageService.save の負荷試験）
+ */
+@Log4j2
+class RentalSaveConcurrencyTest extends MySqlTestSupport {
+
+    private static final String STOCK_ID = "T00001";
+
+    private static final int THREADS = 16;
+
+    /** 重なる期間の組の数（組どうしは重ならない） */
+    private static final int WINDOWS = 20;
+
+    /** 組の間隔（日） */
+    private static final int WINDOW_SPAN = 10;
+
+    @Autowired
+    private RentalManageService rentalManageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate.update("DELETE FROM rental_manage");
+        this.jdbcTemplate.update("DELETE FROM stocks");
+        this.jdbcTemplate.update("DELETE FROM book_mst");
+        this.jdbcTemplate.update("DELETE FROM accounts");
+        this.jdbcTemplate.update("INSERT INTO book_mst (id, isbn, title) VALUES (1, '9784000000011', '負荷試験')");
+        this.jdbcTemplate.update("INSERT INTO stocks (id, book_id, status, price) VALUES (?, 1, 0, 3000)", STOCK_ID);
+        for (int i = 0; i < THREADS; i++) {
+            this.jdbcTemplate.update(
+                    "INSERT INTO accounts (employee_id, name, email, password, authorization_type) VALUES (?, ?, ?, 'x', 0)",
+                    employeeId(i), "社員" + i, "user" + i + "@example.com");
+        }
+    }
+
+    @Test
+    void onlyOneRentalPerOverlappingWindow() throws Exception {
+        LocalDate base = LocalDate.now().plusDays(7);
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        AtomicInteger saved = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                // スレッドごとに組の順序を変え、同じ組を同時に登録する機会を増やす
+                List<Integer> windows = new ArrayList<>();
+                for (int w = 0; w < WINDOWS; w++) {
+                    windows.add(w);
+                }
+                Collections.shuffle(windows, new Random(thread));
+                start.await();
+                for (int w : windows) {
+                    // 組の中の期間は [d, d+4), [d+1, d+5), [d+2, d+6) のいずれか（互いに重なる）
+                    LocalDate from = base.plusDays((long) w * WINDOW_SPAN + thread % 3);
+                    try {
+                        this.rentalManageService.save(dto(employeeId(thread), from, from.plusDays(4)));
+                        saved.incrementAndGet();
+                    } catch (RentalConflictException e) {
+                        conflicts.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        int attempts = THREADS * WINDOWS;
+        log.info("RentalManageService.save: {} attempts by {} threads in {} ms ({} attempts/s, {} saved, {} conflicts)",
+                attempts, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.1f", attempts / (elapsedNanos / 1_000_000_000.0)), saved.get(), conflicts.get());
+
+        assertThat(unexpected).isEmpty();
+        assertThat(saved.get()).isEqualTo(WINDOWS);
+        assertThat(conflicts.get()).isEqualTo(attempts - WINDOWS);
+        for (int w = 0; w < WINDOWS; w++) {
+            LocalDate windowStart = base.plusDays((long) w * WINDOW_SPAN);
+            Integer committed = this.jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM rental_manage WHERE stock_id = ? AND expected_rental_on BETWEEN ? AND ?",
+                    Integer.class, STOCK_ID, windowStart, windowStart.plusDays(2));
+            assertThat(committed).as("window %d", w).isEqualTo(1);
+        }
+        // コミットされた貸出どうしも重ならない
+        Integer overlapping = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM rental_manage a JOIN rental_manage b ON a.stock_id = b.stock_id AND a.id < b.id"
+                        + " AND a.expected_rental_on < b.expected_return_on AND b.expected_rental_on < a.expected_return_on",
+                Integer.class);
+        assertThat(overlapping).isZero();
+    }
+
+    private static RentalManageDto dto(String employeeId, LocalDate from, LocalDate to) {
+        RentalManageDto dto = new RentalManageDto();
+        dto.setStockId(STOCK_ID);
+        dto.setEmployeeId(employeeId);
+        dto.setStatus(RentalStatus.RENT_WAIT.getValue());
+        dto.setExpectedRentalOn(AvailabilityService.toDate(from));
+        dto.setExpectedReturnOn(AvailabilityService.toDate(to));
+        return dto;
+    }
+
+    private static String employeeId(int thread) {
+        return String.format("L%04d", thread);
+    }
+}
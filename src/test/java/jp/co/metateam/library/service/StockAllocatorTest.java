@@ -0,0 +1,110 @@
+package jp.co.metateam.library.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import jp.co.metateam.library.model.RentalPeriod;
+
+/**
+ * StockAllocator のベストフィットの優先順位
+ */
+class StockAllocatorTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 6, 1);
+
+    /** 希望期間 [10日, 15日) */
+    private static final LocalDate FROM = day(10);
+    private static final LocalDate TO = day(15);
+
+    @Test
+    void prefersStockBookedOnBothSides() {
+        // A：前だけ隙間0日、B：前後とも隙間3日 → 空きの途中を埋めるBを選ぶ
+        List<RentalPeriod> periods = List.of(
+                period(1, "A", 0, 10),
+                period(2, "B", 0, 7),
+                period(3, "B", 18, 25));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B"), periods, FROM, TO, null)).isEqualTo("B");
+    }
+
+    @Test
+    void prefersStockBookedOnOneSideOverUnbookedStock() {
+        List<RentalPeriod> periods = List.of(period(1, "B", 20, 25));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B"), periods, FROM, TO, null)).isEqualTo("B");
+    }
+
+    @Test
+    void smallestGapWins() {
+        // 前後とも貸出あり：Aは隙間 2+5=7日、Bは 1+1=2日、Cは 0+4=4日
+        List<RentalPeriod> periods = List.of(
+                period(1, "A", 0, 8), period(2, "A", 20, 25),
+                period(3, "B", 0, 9), period(4, "B", 16, 25),
+                period(5, "C", 0, 10), period(6, "C", 19, 25));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B", "C"), periods, FROM, TO, null)).isEqualTo("B");
+    }
+
+    @Test
+    void tieKeepsFirstStockInIdOrder() {
+        List<RentalPeriod> periods = List.of(period(1, "A", 0, 8), period(2, "B", 0, 8));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B"), periods, FROM, TO, null)).isEqualTo("A");
+        assertThat(StockAllocator.bestFit(List.of("A", "B", "C"), List.of(), FROM, TO, null)).isEqualTo("A");
+    }
+
+    @Test
+    void overlappingStockIsSkipped() {
+        // Aは隙間0日で接するが、[14, 20) が希望期間と重なる
+        List<RentalPeriod> periods = List.of(
+                period(1, "A", 0, 10), period(2, "A", 14, 20),
+                period(3, "B", 0, 5));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B"), periods, FROM, TO, null)).isEqualTo("B");
+    }
+
+    @Test
+    void adjacentPeriodsDoNotOverlap() {
+        // 返却予定日＝貸出予定日、返却予定日＝次の貸出予定日は重ならない（半開区間）
+        List<RentalPeriod> periods = List.of(period(1, "A", 0, 10), period(2, "A", 15, 20));
+
+        assertThat(StockAllocator.bestFit(List.of("A"), periods, FROM, TO, null)).isEqualTo("A");
+    }
+
+    @Test
+    void excludedRentalIsIgnored() {
+        // 編集中の貸出（2）自身とは重ならないものとして扱う
+        List<RentalPeriod> periods = List.of(period(2, "A", 10, 15), period(3, "B", 0, 3));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B"), periods, FROM, TO, null)).isEqualTo("B");
+        assertThat(StockAllocator.bestFit(List.of("A"), periods, FROM, TO, 2L)).isEqualTo("A");
+    }
+
+    @Test
+    void periodsOfOtherStocksAreIgnored() {
+        List<RentalPeriod> periods = List.of(period(1, "Z", 10, 15));
+
+        assertThat(StockAllocator.bestFit(List.of("A"), periods, FROM, TO, null)).isEqualTo("A");
+    }
+
+    @Test
+    void returnsNullWhenNothingIsFree() {
+        List<RentalPeriod> periods = List.of(period(1, "A", 5, 11), period(2, "B", 14, 30));
+
+        assertThat(StockAllocator.bestFit(List.of("A", "B"), periods, FROM, TO, null)).isNull();
+        assertThat(StockAllocator.bestFit(List.of(), List.of(), FROM, TO, null)).isNull();
+    }
+
+    private static RentalPeriod period(long rentalId, String stockId, int from, int to) {
+        return new RentalPeriod(rentalId, stockId, 1L, AvailabilityService.toDate(day(from)),
+                AvailabilityService.toDate(day(to)));
+    }
+
+    private static LocalDate day(int offset) {
+        return BASE.plusDays(offset);
+    }
+}
@@ -0,0 +1,154 @@
+package jp.co.metateam.library.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * StockIntervals の重複判定を、すべての貸出を走査する判定と比較する
+ */
+class StockIntervalsTest {
+
+    /** 日付の範囲（狭くして、開始日・返却予定日が同じ貸出を多く作る） */
+    private static final int DAYS = 40;
+
+    @Test
+    void emptyNeverOverlaps() {
+        assertThat(StockIntervals.EMPTY.overlaps(0, 10, null)).isFalse();
+        assertThat(StockIntervals.of(List.of()).overlaps(0, 10, 1L)).isFalse();
+    }
+
+    @Test
+    void periodsAreHalfOpen() {
+        StockIntervals intervals = StockIntervals.of(List.of(new long[] { 1, 10, 20 }));
+
+        // 返却予定日・貸出予定日と同じ日に接する期間は重ならない
+        assertThat(intervals.overlaps(20, 25, null)).isFalse();
+        assertThat(intervals.overlaps(5, 10, null)).isFalse();
+        assertThat(intervals.overlaps(19, 20, null)).isTrue();
+        assertThat(intervals.overlaps(5, 11, null)).isTrue();
+        assertThat(intervals.overlaps(12, 15, null)).isTrue();
+    }
+
+    @Test
+    void excludedRentalWithLongestPeriodFallsBackToSecondEnd() {
+        // 最も遅い返却予定日の貸出（2）を除くと、残りの最大は貸出1の15
+        StockIntervals intervals = StockIntervals.of(List.of(
+                new long[] { 1, 0, 15 },
+                new long[] { 2, 5, 30 },
+                new long[] { 3, 40, 45 }));
+
+        assertThat(intervals.overlaps(20, 25, null)).isTrue();
+        assertThat(intervals.overlaps(20, 25, 2L)).isFalse();
+        assertThat(intervals.overlaps(14, 25, 2L)).isTrue();
+        assertThat(intervals.overlaps(20, 25, 1L)).isTrue();
+    }
+
+    @Test
+    void excludedRentalWithEqualEndKeepsTheOtherOne() {
+        // 返却予定日が同じ貸出が2件ある場合、片方を除いてももう片方で重複する
+        StockIntervals intervals = StockIntervals.of(List.of(
+                new long[] { 1, 0, 20 },
+                new long[] { 2, 5, 20 }));
+
+        assertThat(intervals.overlaps(10, 12, 1L)).isTrue();
+        assertThat(intervals.overlaps(10, 12, 2L)).isTrue();
+    }
+
+    @Test
+    void matchesBruteForceOnRandomIntervals() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            List<long[]> entries = randomEntries(random, random.nextInt(12));
+            StockIntervals intervals = StockIntervals.of(entries);
+
+            for (int query = 0; query < 50; query++) {
+                long from = random.nextInt(DAYS);
+                long to = from + 1 + random.nextInt(10);
+                Long excluded = randomExcludedId(random, entries);
+
+                assertThat(intervals.overlaps(from, to, excluded))
+                        .as("entries=%s from=%d to=%d excluded=%s", describe(entries), from, to, excluded)
+                        .isEqualTo(bruteForce(entries, from, to, excluded));
+            }
+        }
+    }
+
+    @Test
+    void withAndWithoutMatchBruteForce() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            List<long[]> entries = randomEntries(random, 1 + random.nextInt(10));
+            StockIntervals intervals = StockIntervals.of(entries);
+
+            // 1件を差し替え、1件を取り除いた索引も、作り直した索引と同じ判定になる
+            long[] changed = entries.get(random.nextInt(entries.size()));
+            long start = random.nextInt(DAYS);
+            long[] replacement = { changed[0], start, start + 1 + random.nextInt(10) };
+            List<long[]> replaced = new ArrayList<>(entries);
+            replaced.remove(changed);
+            replaced.add(replacement);
+            StockIntervals withReplacement = intervals.with(replacement[0], replacement[1], replacement[2]);
+
+            List<long[]> removed = new ArrayList<>(entries);
+            removed.remove(changed);
+            StockIntervals withoutChanged = intervals.without(changed[0]);
+
+            for (int query = 0; query < 30; query++) {
+                long from = random.nextInt(DAYS);
+                long to = from + 1 + random.nextInt(10);
+                Long excluded = randomExcludedId(random, entries);
+
+                assertThat(withReplacement.overlaps(from, to, excluded))
+                        .isEqualTo(bruteForce(replaced, from, to, excluded));
+                assertThat(withoutChanged.overlaps(from, to, excluded))
+                        .isEqualTo(bruteForce(removed, from, to, excluded));
+            }
+        }
+    }
+
+    private static List<long[]> randomEntries(Random random, int count) {
+        List<long[]> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long start = random.nextInt(DAYS);
+            // 期間の長さは0日（貸出予定日＝返却予定日）も含める
+            long end = start + random.nextInt(12);
+            entries.add(new long[] { i + 1, start, end });
+        }
+        return entries;
+    }
+
+    private static Long randomExcludedId(Random random, List<long[]> entries) {
+        int choice = random.nextInt(entries.size() + 2);
+        if (choice < entries.size()) {
+            return entries.get(choice)[0];
+        }
+        // 除外なし・存在しない貸出管理番号
+        return choice == entries.size() ? null : 999L;
+    }
+
+    private static boolean bruteForce(List<long[]> entries, long from, long to, Long excludedRentalId) {
+        for (long[] entry : entries) {
+            if (excludedRentalId != null && entry[0] == excludedRentalId) {
+                continue;
+            }
+            if (entry[2] > from && entry[1] < to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(List<long[]> entries) {
+        StringBuilder description = new StringBuilder();
+        for (long[] entry : entries) {
+            description.append('[').append(entry[0]).append(':').append(entry[1]).append('-').append(entry[2])
+                    .append(']');
+        }
+        return description.toString();
+    }
+}
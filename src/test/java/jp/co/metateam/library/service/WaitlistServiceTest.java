@@ -0,0 +1,223 @@
+package jp.co.metateam.library.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManagerFactory;
+import jp.co.metateam.library.model.RentalManageDto;
+import jp.co.metateam.library.model.StockDto;
+import jp.co.metateam.library.values.RentalStatus;
+import jp.co.metateam.library.values.WaitlistStatus;
+
+/**
+ * 順番待ちの登録・取消と繰り上げ（H2のMySQLモード、他のテストと別のデータベース）
+ * 書籍10の在庫 W0001・W0002 は貸出中、W0003 は利用不可の状態から始める。
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:mt_library_waitlist;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("h2")
+class WaitlistServiceTest {
+
+    private static final Long BOOK_ID = 10L;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private RentalManageService rentalManageService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate.update("DELETE FROM waitlist_entries");
+        this.jdbcTemplate.update("DELETE FROM rental_manage WHERE stock_id LIKE 'W%'");
+        this.jdbcTemplate.update("DELETE FROM stocks WHERE book_id = ?", BOOK_ID);
+        this.jdbcTemplate.update("DELETE FROM book_mst WHERE id = ?", BOOK_ID);
+        this.jdbcTemplate.update("INSERT INTO book_mst (id, isbn, title) VALUES (?, '9784000000103', '順番待ちの本')",
+                BOOK_ID);
+        this.jdbcTemplate.update("INSERT INTO stocks (id, book_id, status, price) VALUES ('W0001', ?, 0, 1000),"
+                + " ('W0002', ?, 0, 1000), ('W0003', ?, 1, 1000)", BOOK_ID, BOOK_ID, BOOK_ID);
+        insertRental(1001L, "W0001");
+        insertRental(1002L, "W0002");
+        this.entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    void joinWaitsWhileEveryCopyIsRented() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+
+        assertThat(statusOf("E0002")).isEqualTo(WaitlistStatus.WAITING.getValue());
+        assertThat(this.waitlistService.isWaiting(BOOK_ID, "E0002")).isTrue();
+    }
+
+    @Test
+    void joinPromotesOntoCopyAlreadyFree() throws Exception {
+        this.jdbcTemplate.update("UPDATE stocks SET status = 0 WHERE id = 'W0003'");
+
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+
+        assertThat(statusOf("E0002")).isEqualTo(WaitlistStatus.PROMOTED.getValue());
+        assertThat(promotedStockOf("E0002")).isEqualTo("W0003");
+    }
+
+    @Test
+    void canceledEntryIsNotPromoted() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+        this.waitlistService.cancel(entryIdOf("E0002"));
+
+        returnRental(1001L, "W0001");
+
+        assertThat(statusOf("E0002")).isEqualTo(WaitlistStatus.CANCELED.getValue());
+        assertThat(activeRentalCount("W0001")).isZero();
+    }
+
+    @Test
+    void returnPromotesHeadOntoFreedCopy() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+        this.waitlistService.join(BOOK_ID, "E0003", 3);
+
+        returnRental(1001L, "W0001");
+
+        assertThat(promotedStockOf("E0002")).isEqualTo("W0001");
+        assertThat(statusOf("E0003")).isEqualTo(WaitlistStatus.WAITING.getValue());
+    }
+
+    @Test
+    void returnWithStockChangePromotesOntoPreviousCopy() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+
+        // 返却と同時に在庫を W0003 に付け替えても、空くのは W0001
+        returnRental(1001L, "W0003");
+
+        assertThat(promotedStockOf("E0002")).isEqualTo("W0001");
+    }
+
+    @Test
+    void stockBecomingAvailablePromotesHead() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+
+        StockDto stockDto = new StockDto();
+        stockDto.setId("W0003");
+        stockDto.setBookId(BOOK_ID);
+        stockDto.setStatus(0);
+        stockDto.setPrice(1000);
+        this.stockService.update("W0003", stockDto);
+
+        assertThat(promotedStockOf("E0002")).isEqualTo("W0003");
+    }
+
+    @Test
+    void concurrentReturnsPromoteEachEntryOnce() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+        this.waitlistService.join(BOOK_ID, "E0003", 3);
+
+        returnConcurrently();
+
+        assertThat(statusOf("E0002")).isEqualTo(WaitlistStatus.PROMOTED.getValue());
+        assertThat(statusOf("E0003")).isEqualTo(WaitlistStatus.PROMOTED.getValue());
+        assertThat(activeRentalCount("W0001")).isEqualTo(1);
+        assertThat(activeRentalCount("W0002")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentReturnsPromoteSingleEntryOnlyOnce() throws Exception {
+        this.waitlistService.join(BOOK_ID, "E0002", 3);
+
+        returnConcurrently();
+
+        assertThat(statusOf("E0002")).isEqualTo(WaitlistStatus.PROMOTED.getValue());
+        assertThat(activeRentalCount("W0001") + activeRentalCount("W0002")).isEqualTo(1);
+    }
+
+    /**
+     * 同じ書籍の2冊を2つのスレッドから同時に返却する
+     */
+    private void returnConcurrently() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Callable<Void>> returns = List.of(
+                    () -> {
+                        start.await();
+                        returnRental(1001L, "W0001");
+                        return null;
+                    },
+                    () -> {
+                        start.await();
+                        returnRental(1002L, "W0002");
+                        return null;
+                    });
+            List<Future<Void>> futures = returns.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insertRental(Long id, String stockId) {
+        this.jdbcTemplate.update("INSERT INTO rental_manage (id, stock_id, employee_id, status, expected_rental_on,"
+                + " expected_return_on, rentaled_at) VALUES (?, ?, 'E0001', 1, ?, ?, CURRENT_TIMESTAMP)",
+                id, stockId, Date.valueOf(this.today.minusDays(1)), Date.valueOf(this.today.plusDays(5)));
+    }
+
+    private void returnRental(Long id, String stockId) throws Exception {
+        RentalManageDto rentalManageDto = new RentalManageDto();
+        rentalManageDto.setId(id);
+        rentalManageDto.setStockId(stockId);
+        rentalManageDto.setEmployeeId("E0001");
+        rentalManageDto.setStatus(RentalStatus.RETURNED.getValue());
+        rentalManageDto.setExpectedRentalOn(Date.valueOf(this.today.minusDays(1)));
+        rentalManageDto.setExpectedReturnOn(Date.valueOf(this.today.plusDays(5)));
+        this.rentalManageService.update(id, rentalManageDto);
+    }
+
+    private Long entryIdOf(String employeeId) {
+        return this.jdbcTemplate.queryForObject("SELECT id FROM waitlist_entries WHERE employee_id = ?", Long.class,
+                employeeId);
+    }
+
+    private Integer statusOf(String employeeId) {
+        return this.jdbcTemplate.queryForObject("SELECT status FROM waitlist_entries WHERE employee_id = ?",
+                Integer.class, employeeId);
+    }
+
+    private String promotedStockOf(String employeeId) {
+        return this.jdbcTemplate.queryForObject("SELECT rm.stock_id FROM waitlist_entries w"
+                + " JOIN rental_manage rm ON rm.id = w.rental_id WHERE w.employee_id = ? AND w.status = ?",
+                String.class, employeeId, WaitlistStatus.PROMOTED.getValue());
+    }
+
+    private int activeRentalCount(String stockId) {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rental_manage WHERE stock_id = ? AND status IN (0, 1)",
+                Integer.class, stockId);
+    }
+}
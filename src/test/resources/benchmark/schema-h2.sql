@@ -0,0 +1,88 @@
+-- 性能計測（JMH）・テスト用のH2（MySQLモード）スキーマ
+-- docker/mysql/initdb/create_table.sql と同じ列構成（外部キーはデータ投入の速度を優先して省略）
+
+CREATE TABLE IF NOT EXISTS accounts
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    employee_id varchar(50) NOT NULL,
+    name varchar(255) NOT NULL,
+    email varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    authorization_type tinyint NOT NULL DEFAULT 0,
+    created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, employee_id),
+    UNIQUE KEY uq_email (email)
+);
+CREATE INDEX IF NOT EXISTS idx_employee_id ON accounts (employee_id);
+
+CREATE TABLE IF NOT EXISTS book_mst
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    isbn varchar(13) NOT NULL,
+    title varchar(255) NOT NULL,
+    deleted_at datetime,
+    created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uq_isbn (isbn)
+);
+
+CREATE TABLE IF NOT EXISTS stocks
+(
+    id varchar(20) NOT NULL,
+    book_id bigint NOT NULL,
+    status tinyint NOT NULL,
+    price int NOT NULL,
+    deleted_at datetime,
+    created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_stocks_book_id ON stocks (book_id);
+
+CREATE TABLE IF NOT EXISTS rental_manage
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    stock_id varchar(20) NOT NULL,
+    employee_id varchar(50) NOT NULL,
+    status tinyint NOT NULL,
+    expected_rental_on date NOT NULL,
+    expected_return_on date NOT NULL,
+    rentaled_at datetime,
+    returned_at datetime,
+    canceled_at datetime,
+    created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_rental_manage_stock_id ON rental_manage (stock_id);
+CREATE INDEX IF NOT EXISTS idx_rental_manage_employee_id ON rental_manage (employee_id);
+
+-- src/main/resources/db/migration/V2__add_query_indexes.sql と同じ索引
+CREATE INDEX IF NOT EXISTS idx_rental_manage_stock_status_period
+    ON rental_manage (stock_id, status, expected_rental_on, expected_return_on);
+CREATE INDEX IF NOT EXISTS idx_rental_manage_status_period
+    ON rental_manage (status, expected_rental_on, expected_return_on, stock_id);
+CREATE INDEX IF NOT EXISTS idx_rental_manage_rental_on_id ON rental_manage (expected_rental_on, id);
+CREATE INDEX IF NOT EXISTS idx_stocks_book_status_deleted ON stocks (book_id, status, deleted_at);
+CREATE INDEX IF NOT EXISTS idx_stocks_status_deleted_book ON stocks (status, deleted_at, book_id);
+CREATE INDEX IF NOT EXISTS idx_book_mst_title ON book_mst (title);
+
+-- src/main/resources/db/migration/V3__create_waitlist_entries.sql と同じテーブル
+CREATE TABLE IF NOT EXISTS waitlist_entries
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    book_id bigint NOT NULL,
+    employee_id varchar(50) NOT NULL,
+    rental_days int NOT NULL,
+    status tinyint NOT NULL DEFAULT 0,
+    rental_id bigint,
+    promoted_at datetime,
+    canceled_at datetime,
+    created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_book_status_id ON waitlist_entries (book_id, status, id);
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_employee_status ON waitlist_entries (employee_id, status);
@@ -0,0 +1,35 @@
+-- テスト用のデータ（application-h2.properties で投入する）
+-- 貸出の日付は実行日からの相対日付にする
+
+INSERT INTO accounts (employee_id, name, email, password, authorization_type) VALUES
+    ('E0001', '山田 太郎', 'yamada@example.com', '$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1KMBMh3Gf2N7H0nOLuXvIqS', 1),
+    ('E0002', '佐藤 花子', 'sato@example.com', '$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1KMBMh3Gf2N7H0nOLuXvIqS', 0),
+    ('E0003', '鈴木 一郎', 'suzuki@example.com', '$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1KMBMh3Gf2N7H0nOLuXvIqS', 0);
+
+INSERT INTO book_mst (id, isbn, title) VALUES
+    (1, '9784000000011', 'Java入門'),
+    (2, '9784000000028', 'Spring Boot実践'),
+    (3, '9784000000035', 'SQLアンチパターン'),
+    (4, '9784000000042', 'リーダブルコード');
+
+INSERT INTO stocks (id, book_id, status, price) VALUES
+    ('A00001', 1, 0, 3000),
+    ('A00002', 1, 0, 3000),
+    ('A00003', 2, 0, 3500),
+    ('A00004', 2, 1, 3500),
+    ('A00005', 3, 0, 2800),
+    ('A00006', 3, 0, 2800),
+    ('A00007', 4, 0, 2400),
+    ('A00008', 4, 0, 2400);
+
+INSERT INTO rental_manage (id, stock_id, employee_id, status, expected_rental_on, expected_return_on, rentaled_at, returned_at) VALUES
+    (1, 'A00001', 'E0001', 1, DATEADD('DAY', -3, CURRENT_DATE), DATEADD('DAY', 4, CURRENT_DATE), DATEADD('DAY', -3, CURRENT_TIMESTAMP), NULL),
+    (2, 'A00001', 'E0002', 0, DATEADD('DAY', 5, CURRENT_DATE), DATEADD('DAY', 10, CURRENT_DATE), NULL, NULL),
+    (3, 'A00003', 'E0002', 1, DATEADD('DAY', -1, CURRENT_DATE), DATEADD('DAY', 6, CURRENT_DATE), DATEADD('DAY', -1, CURRENT_TIMESTAMP), NULL),
+    (4, 'A00005', 'E0003', 0, DATEADD('DAY', 2, CURRENT_DATE), DATEADD('DAY', 9, CURRENT_DATE), NULL, NULL),
+    (5, 'A00006', 'E0001', 2, DATEADD('DAY', -20, CURRENT_DATE), DATEADD('DAY', -13, CURRENT_DATE), DATEADD('DAY', -20, CURRENT_TIMESTAMP), DATEADD('DAY', -14, CURRENT_TIMESTAMP)),
+    (6, 'A00007', 'E0003', 1, DATEADD('DAY', -2, CURRENT_DATE), DATEADD('DAY', 5, CURRENT_DATE), DATEADD('DAY', -2, CURRENT_TIMESTAMP), NULL);
+
+-- 採番の開始位置を投入した行の後にする
+ALTER TABLE book_mst ALTER COLUMN id RESTART WITH 100;
+ALTER TABLE rental_manage ALTER COLUMN id RESTART WITH 100;